@@ -0,0 +1,69 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntIndexedQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end search across generated square maps of several sizes
+ *
+ * @author Scallop Ye
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FindPathBenchmark {
+
+    @Param({"64", "256", "1024"})
+    int size;
+
+    @Param({"0.2"})
+    double walls;
+
+    @Param({"astar", "flat", "jps"})
+    String engine;
+
+    /**
+     * Open list of astar and jps, see {@link IntIndexedQueue#create}
+     */
+    @Param({"binary"})
+    String queue;
+
+    private Grid grid;
+    private GridSearch search;
+
+    @Setup
+    public void setup() {
+        grid = Grid.random(size, size, walls, new Random(42));
+        search = new GridSearch();
+        if (findPath() == null)
+            throw new IllegalStateException("No path on the generated map");
+    }
+
+    @Benchmark
+    public int[] findPath() {
+        switch (engine) {
+            case "flat":
+                return search.findPath(grid);
+            case "jps":
+                return JumpPointSearch.findPath(grid, IntIndexedQueue.create(queue, grid.width * grid.height));
+            default:
+                return Main.findPath(grid, IntIndexedQueue.create(queue, grid.width * grid.height));
+        }
+    }
+}
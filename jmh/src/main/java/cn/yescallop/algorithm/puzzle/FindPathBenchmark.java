@@ -0,0 +1,85 @@
+package cn.yescallop.algorithm.puzzle;
+
+import cn.yescallop.algorithm.util.IntIndexedQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end search on fixed seeded boards, so that runs and engines
+ * compare on the same instances
+ * <p>
+ * 4x4 boards are drawn uniformly. 5x5 boards are a seeded walk of
+ * {@link #WALK} random moves from the goal, 34 to 42 moves deep for the
+ * default seeds, since uniform 5x5 boards are out of reach of the
+ * optimal engines. The pdb engine is IDA* with the default pattern
+ * database of the size, built in setup.
+ *
+ * @author Scallop Ye
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class FindPathBenchmark {
+
+    static final int WALK = 100;
+
+    @Param({"4", "5"})
+    int size;
+
+    @Param({"1", "2", "3"})
+    long seed;
+
+    @Param({"astar", "parallel", "ida", "pdb", "bidirectional", "frontier"})
+    String engine;
+
+    /**
+     * Open list of astar, see {@link IntIndexedQueue#create}
+     */
+    @Param({"bucket"})
+    String queue;
+
+    private Status status;
+    private PatternDatabase pdb;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(seed);
+        status = size == 4 ? Status.random(size, random) : Status.generate(size, WALK, random);
+        if (engine.equals("pdb"))
+            pdb = PatternDatabase.build(size);
+    }
+
+    @Benchmark
+    public int[] findPath() throws InterruptedException {
+        Status s = status.copy();
+        switch (engine) {
+            case "parallel":
+                return Main.findPathParallel(s, Runtime.getRuntime().availableProcessors());
+            case "ida":
+                return IDAStar.findPath(s);
+            case "pdb":
+                return IDAStar.findPath(s, pdb);
+            case "bidirectional":
+                return BidirectionalSearch.findPath(s);
+            case "frontier":
+                return FrontierSearch.findPath(s, Runtime.getRuntime().maxMemory() / 2);
+            default:
+                return Main.findPath(s, IntIndexedQueue.create(queue, 1024));
+        }
+    }
+}
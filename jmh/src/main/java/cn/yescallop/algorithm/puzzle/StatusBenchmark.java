@@ -0,0 +1,59 @@
+package cn.yescallop.algorithm.puzzle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node generation and heuristic of a fixed seeded board
+ *
+ * @author Scallop Ye
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatusBenchmark {
+
+    @Param({"4", "5"})
+    int size;
+
+    private Status status;
+    private int[] index;
+
+    @Setup
+    public void setup() {
+        status = Status.random(size, new Random(42));
+        index = Status.goalIndex(size);
+        status.estimateCost(index);
+    }
+
+    /**
+     * Generates all neighbours of the board
+     */
+    @Benchmark
+    public void cloneWithMove(Blackhole bh) {
+        for (int m = 0; m < 4; m++)
+            bh.consume(status.cloneWithMove(m, index));
+    }
+
+    @Benchmark
+    public int estimateCost() {
+        status.estimateCost(index);
+        return status.f;
+    }
+}
@@ -0,0 +1,86 @@
+package cn.yescallop.algorithm.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state operations on each {@link IntIndexedQueue} strategy holding
+ * a fixed number of ids
+ * <p>
+ * Priorities stay non-negative and within 64 or so of the least, as with
+ * the f values of A* under a consistent heuristic, so the bucket queue
+ * runs as it would in a search. The queue is refilled every iteration
+ * since the priorities only grow.
+ *
+ * @author Scallop Ye
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IntIndexedQueueBenchmark {
+
+    @Param({"binary", "4ary", "8ary", "pairing", "bucket"})
+    String strategy;
+
+    @Param({"1024", "65536"})
+    int size;
+
+    private IntIndexedQueue queue;
+    private int[] picks;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Random random = new Random(42);
+        queue = IntIndexedQueue.create(strategy, size);
+        for (int i = 0; i < size; i++)
+            queue.offer(i, random.nextInt(64));
+        picks = new int[4096];
+        for (int i = 0; i < picks.length; i++)
+            picks[i] = random.nextInt(size);
+    }
+
+    private int pick() {
+        return picks[next++ & picks.length - 1];
+    }
+
+    /**
+     * Polls the least id and offers it again with a larger priority
+     */
+    @Benchmark
+    public int pollOffer() {
+        int p = queue.priorityOf(queue.peek());
+        int id = queue.poll();
+        queue.offer(id, p + 1 + (pick() & 63));
+        return id;
+    }
+
+    /**
+     * Lowers the priority of an id, but not below the least, then does
+     * {@link #pollOffer} so that the priorities keep their spread
+     */
+    @Benchmark
+    public int decreaseKeyPollOffer() {
+        int least = queue.priorityOf(queue.peek());
+        int id = pick();
+        int p = queue.priorityOf(id);
+        queue.decreaseKey(id, Math.max(least, p - 1 - (pick() & 63)));
+        return pollOffer() + id;
+    }
+}
@@ -0,0 +1,100 @@
+package cn.yescallop.algorithm.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state operations on a {@link PriorityHashQueue} of a fixed size
+ *
+ * @author Scallop Ye
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriorityHashQueueBenchmark {
+
+    private static class Node {
+
+        final int id;
+        long key;
+
+        Node(int id, long key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return id == ((Node) obj).id;
+        }
+    }
+
+    @Param({"1024", "65536"})
+    int size;
+
+    private PriorityHashQueue<Node> queue;
+    private Node[] nodes;
+    private int[] picks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        queue = new PriorityHashQueue<>(size, Comparator.comparingLong((Node n) -> n.key));
+        nodes = new Node[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new Node(i, random.nextInt(size));
+            queue.offer(nodes[i]);
+        }
+        picks = new int[4096];
+        for (int i = 0; i < picks.length; i++)
+            picks[i] = random.nextInt(size);
+    }
+
+    private int pick() {
+        return picks[next++ & picks.length - 1];
+    }
+
+    /**
+     * Polls the least node and offers it again with a larger key
+     */
+    @Benchmark
+    public Node pollOffer() {
+        Node n = queue.poll();
+        n.key += 1 + (pick() & 63);
+        queue.offer(n);
+        return n;
+    }
+
+    /**
+     * Decreases the key of a node and restores the heap
+     */
+    @Benchmark
+    public Node decreaseKey() {
+        Node n = nodes[pick()];
+        n.key -= 1 + (pick() & 63);
+        queue.siftUp(queue.indexOf(n), n);
+        return n;
+    }
+}
@@ -0,0 +1,117 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.BatchSolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers many path queries on one maze concurrently
+ * <p>
+ * Usage: {@code BatchMain <map> <file|-> [threads] [timeoutMillis]}. The map
+ * is opened once, as by {@link Grid#open}, and shared by all workers, each
+ * of which keeps its own {@link GridSearch} buffers. The queries are text
+ * with one {@code startX,startY,destX,destY} per line, separated by commas
+ * or spaces. Each answered query is printed as its line number, length
+ * and path; a line that is not a query is reported as a failed query.
+ *
+ * @author Scallop Ye
+ */
+public class BatchMain {
+
+    private static class Query {
+
+        final int index;
+        final int startX, startY, destX, destY;
+
+        /**
+         * Why the line is not a query, or null if it is
+         */
+        final IllegalArgumentException invalid;
+
+        Query(int index, int startX, int startY, int destX, int destY) {
+            this.index = index;
+            this.startX = startX;
+            this.startY = startY;
+            this.destX = destX;
+            this.destY = destY;
+            this.invalid = null;
+        }
+
+        Query(int index, IllegalArgumentException invalid) {
+            this.index = index;
+            this.startX = this.startY = this.destX = this.destY = -1;
+            this.invalid = invalid;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: BatchMain <map> <file|-> [threads] [timeoutMillis]");
+            System.exit(1);
+        }
+        Grid grid = Grid.open(Paths.get(args[0]));
+        String input = args.length > 1 ? args[1] : "-";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long timeout = args.length > 3 ? Long.parseLong(args[3]) : 10000;
+
+        ThreadLocal<GridSearch> searches = ThreadLocal.withInitial(GridSearch::new);
+        BatchSolver<Query> solver = new BatchSolver<>(
+                (q, deadline) -> {
+                    if (q.invalid != null)
+                        throw q.invalid;
+                    return searches.get().findPath(grid, q.startX, q.startY, q.destX, q.destY, deadline);
+                },
+                threads, threads * 4, timeout, TimeUnit.MILLISECONDS);
+        BufferedReader br = input.equals("-") ?
+                new BufferedReader(new InputStreamReader(System.in)) :
+                Files.newBufferedReader(Paths.get(input));
+        try (solver; br) {
+            String line;
+            for (int i = 0; (line = br.readLine()) != null; i++) {
+                line = line.trim();
+                if (line.isEmpty())
+                    continue;
+                Query query;
+                try {
+                    query = parse(i, line);
+                } catch (IllegalArgumentException e) {
+                    query = new Query(i, e);
+                }
+                submit(solver, query);
+            }
+        }
+        System.out.println(solver.summary());
+    }
+
+    private static void submit(BatchSolver<Query> solver, Query query) throws InterruptedException {
+        solver.submit(query, r -> {
+            Query q = r.query;
+            if (r.timedOut) {
+                System.out.println(q.index + " timed out");
+            } else if (r.error != null) {
+                System.out.println(q.index + " failed: " + r.error);
+            } else if (r.path == null) {
+                System.out.println(q.index + " not found");
+            } else {
+                StringBuilder sb = new StringBuilder().append(q.index).append(' ')
+                        .append(r.path.length).append(' ');
+                for (int m : r.path)
+                    sb.append(m);
+                System.out.println(sb);
+            }
+        });
+    }
+
+    private static Query parse(int index, String line) {
+        String[] a = line.split("[,\\s]+");
+        if (a.length != 4)
+            throw new IllegalArgumentException("Not a query: " + line);
+        return new Query(index, Integer.parseInt(a[0]), Integer.parseInt(a[1]),
+                Integer.parseInt(a[2]), Integer.parseInt(a[3]));
+    }
+}
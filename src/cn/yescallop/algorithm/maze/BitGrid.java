@@ -0,0 +1,207 @@
+package cn.yescallop.algorithm.maze;
+
+import java.util.Arrays;
+
+/**
+ * A maze with one bit per cell, 64 cells of a row to a long, set for
+ * open cells
+ * <p>
+ * Breadth-first search works on whole words: the cells one step from a
+ * frontier are the frontier rows above, at and below each row, each
+ * shifted one cell left and right and ORed together, masked by the open
+ * cells not yet visited. Diagonal steps cut corners as in {@link Main},
+ * so no other masking is needed. Only the words around the frontier are
+ * visited at each level. Reachability alone is found by flood filling
+ * whole rows at once with carries.
+ *
+ * @author Scallop Ye
+ */
+class BitGrid {
+
+    final int width, height;
+
+    /**
+     * Words of each row
+     */
+    private final int stride;
+
+    private final long[] open;
+
+    BitGrid(int width, int height) {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Size: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.open = new long[stride * height];
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < stride; w++) {
+                int bits = Math.min(64, width - (w << 6));
+                open[y * stride + w] = bits == 64 ? -1L : (1L << bits) - 1;
+            }
+        }
+    }
+
+    static BitGrid of(Grid grid) {
+        BitGrid b = new BitGrid(grid.width, grid.height);
+        for (int y = 0; y < grid.height; y++) {
+            for (int x = 0; x < grid.width; x++) {
+                if (grid.isWall(x, y))
+                    b.setWall(x, y, true);
+            }
+        }
+        return b;
+    }
+
+    boolean isWall(int x, int y) {
+        return (open[y * stride + (x >>> 6)] >>> x & 1) == 0;
+    }
+
+    void setWall(int x, int y, boolean wall) {
+        int i = y * stride + (x >>> 6);
+        if (wall)
+            open[i] &= ~(1L << x);
+        else
+            open[i] |= 1L << x;
+    }
+
+    /**
+     * Returns whether a path exists, by flood fill
+     * <p>
+     * Rows are swept down and then up, each taking the cells next to the
+     * row before and then every open cell connected to them within the row,
+     * until a pair of sweeps adds nothing.
+     */
+    boolean isReachable(int startX, int startY, int destX, int destY) {
+        if (isWall(startX, startY) || isWall(destX, destY))
+            return false;
+        long[] reach = new long[open.length];
+        long[] seed = new long[stride];
+        reach[startY * stride + (startX >>> 6)] = 1L << startX;
+        int target = destY * stride + (destX >>> 6);
+        long targetBit = 1L << destX;
+        boolean changed = true;
+        while (changed && (reach[target] & targetBit) == 0) {
+            changed = false;
+            for (int y = 0; y < height; y++)
+                changed |= fillRow(reach, y, y - 1, seed);
+            for (int y = height - 1; y >= 0; y--)
+                changed |= fillRow(reach, y, y + 1, seed);
+        }
+        return (reach[target] & targetBit) != 0;
+    }
+
+    /**
+     * Adds to row y of reach the cells next to row from, if any, and all
+     * open cells connected to them along row y, returning whether any was
+     * added
+     */
+    private boolean fillRow(long[] reach, int y, int from, long[] seed) {
+        boolean edge = from < 0 || from >= height;
+        int base = y * stride;
+        long any = 0, added = 0;
+        for (int w = 0; w < stride; w++) {
+            long v = ((edge ? 0 : spread(reach, from, w)) | reach[base + w]) & open[base + w];
+            seed[w] = v;
+            any |= v;
+            added |= v & ~reach[base + w];
+        }
+        if (any == 0)
+            return false;
+        // towards higher x: adding a seed carries through the rest of its run
+        boolean changed = added != 0;
+        long carry = 0;
+        for (int w = 0; w < stride; w++) {
+            long o = open[base + w], sd = seed[w];
+            long sum = o + sd + carry;
+            carry = Long.compareUnsigned(sum, o) < 0 || carry != 0 && sum == o ? 1 : 0;
+            reach[base + w] = ((sum ^ o) | sd) & o;
+        }
+        // towards lower x, the same on reversed words
+        carry = 0;
+        for (int w = stride - 1; w >= 0; w--) {
+            long o = Long.reverse(open[base + w]), sd = Long.reverse(seed[w]);
+            long sum = o + sd + carry;
+            carry = Long.compareUnsigned(sum, o) < 0 || carry != 0 && sum == o ? 1 : 0;
+            reach[base + w] |= Long.reverse(((sum ^ o) | sd) & o);
+            changed |= reach[base + w] != seed[w];
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the number of moves on a shortest path, or -1 if there is none
+     * <p>
+     * Each level only visits the words around those of the frontier.
+     */
+    int distance(int startX, int startY, int destX, int destY) {
+        if (isWall(startX, startY) || isWall(destX, destY))
+            return -1;
+        long[] visited = new long[open.length];
+        long[] frontier = new long[open.length];
+        long[] next = new long[open.length];
+        int[] level = new int[open.length];
+        int[] active = new int[16], nextActive = new int[16];
+        int s = startY * stride + (startX >>> 6);
+        frontier[s] = visited[s] = 1L << startX;
+        active[0] = s;
+        int n = 1;
+        int target = destY * stride + (destX >>> 6);
+        long targetBit = 1L << destX;
+
+        for (int d = 0; n != 0; d++) {
+            if ((frontier[target] & targetBit) != 0)
+                return d;
+            int m = 0;
+            for (int k = 0; k < n; k++) {
+                int y0 = active[k] / stride, w0 = active[k] % stride;
+                for (int y = Math.max(0, y0 - 1); y <= Math.min(height - 1, y0 + 1); y++) {
+                    for (int w = Math.max(0, w0 - 1); w <= Math.min(stride - 1, w0 + 1); w++) {
+                        int i = y * stride + w;
+                        if (level[i] == d + 1)
+                            continue;
+                        level[i] = d + 1;
+                        long grow = spread(frontier, y, w);
+                        if (y > 0)
+                            grow |= spread(frontier, y - 1, w);
+                        if (y < height - 1)
+                            grow |= spread(frontier, y + 1, w);
+                        long v = grow & open[i] & ~visited[i];
+                        if (v == 0)
+                            continue;
+                        next[i] = v;
+                        visited[i] |= v;
+                        if (m == nextActive.length)
+                            nextActive = Arrays.copyOf(nextActive, m << 1);
+                        nextActive[m++] = i;
+                    }
+                }
+            }
+            for (int k = 0; k < n; k++)
+                frontier[active[k]] = 0;
+            long[] t = frontier;
+            frontier = next;
+            next = t;
+            int[] a = active;
+            active = nextActive;
+            nextActive = a;
+            n = m;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns word w of row y with each cell also spread to its
+     * left and right neighbours
+     */
+    private long spread(long[] rows, int y, int w) {
+        int i = y * stride + w;
+        long v = rows[i];
+        long res = v | v << 1 | v >>> 1;
+        if (w > 0)
+            res |= rows[i - 1] >>> 63;
+        if (w < stride - 1)
+            res |= rows[i + 1] << 63;
+        return res;
+    }
+}
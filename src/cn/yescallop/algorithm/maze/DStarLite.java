@@ -0,0 +1,238 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.PriorityHashQueue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Incremental replanning with D* Lite on a maze whose cells change
+ * <p>
+ * Distances are searched from the destination back to the start and kept
+ * between queries: g is the distance last settled for a cell and rhs the
+ * one its neighbours currently imply. Changing a cell only makes it and
+ * its neighbours inconsistent, and the next query settles just the cells
+ * whose distance actually changes. The start may move between queries.
+ * <p>
+ * Walls are copied from the grid on creation, after which the grid is no
+ * longer read. Moves and their costs are those of {@link Main}.
+ *
+ * @author Scallop Ye
+ */
+class DStarLite {
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    private static class Node {
+
+        int id;
+        int k1, k2;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return id == ((Node) obj).id;
+        }
+    }
+
+    private final int width, height;
+    private final int dest;
+    private final BitSet walls;
+    private final int[] g, rhs;
+    private final PriorityHashQueue<Node> openQueue = new PriorityHashQueue<>(
+            Comparator.<Node>comparingInt(n -> n.k1).thenComparingInt(n -> n.k2));
+    private final Node probe = new Node(0);
+    private int start;
+    private int km;
+
+    DStarLite(Grid grid) {
+        this(grid, 0, 0, grid.destX, grid.destY);
+    }
+
+    DStarLite(Grid grid, int startX, int startY, int destX, int destY) {
+        this.width = grid.width;
+        this.height = grid.height;
+        this.walls = new BitSet(width * height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (grid.isWall(x, y))
+                    walls.set(y * width + x);
+            }
+        }
+        this.start = checkCell(startX, startY);
+        this.dest = checkCell(destX, destY);
+        this.g = new int[width * height];
+        this.rhs = new int[width * height];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        rhs[dest] = 0;
+        Node n = new Node(dest);
+        setKey(n);
+        openQueue.add(n);
+    }
+
+    private int checkCell(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Cell: " + x + ", " + y);
+        return y * width + x;
+    }
+
+    boolean isWall(int x, int y) {
+        return walls.get(checkCell(x, y));
+    }
+
+    /**
+     * Sets whether a cell is a wall, to be taken into account by the next
+     * {@link #findPath()}
+     */
+    void setWall(int x, int y, boolean wall) {
+        int id = checkCell(x, y);
+        if (walls.get(id) == wall)
+            return;
+        walls.set(id, wall);
+        updateVertex(id);
+        for (int m = 0; m < 8; m++) {
+            int nx = x + dx[m], ny = y + dy[m];
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height)
+                updateVertex(ny * width + nx);
+        }
+    }
+
+    /**
+     * Moves the start, typically one step along the last path
+     */
+    void moveStart(int x, int y) {
+        int id = checkCell(x, y);
+        km += estimate(start, id);
+        start = id;
+    }
+
+    /**
+     * Returns a shortest path from the start to the destination,
+     * or null if there is none
+     */
+    int[] findPath() {
+        computeShortestPath();
+        if (g[start] == INF || walls.get(start) || walls.get(dest))
+            return null;
+        int[] path = new int[g[start]];
+        for (int i = 0, s = start; s != dest; i++) {
+            int x = s % width, y = s / width;
+            int best = -1, bestG = INF;
+            for (int m = 0; m < 8; m++) {
+                int nx = x + dx[m], ny = y + dy[m];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+                    continue;
+                int v = ny * width + nx;
+                if (!walls.get(v) && g[v] < bestG) {
+                    best = m;
+                    bestG = g[v];
+                }
+            }
+            path[i] = best;
+            s = (y + dy[best]) * width + x + dx[best];
+        }
+        return path;
+    }
+
+    private void computeShortestPath() {
+        Node cur;
+        while ((cur = openQueue.peek()) != null) {
+            int u = cur.id;
+            int k1 = cur.k1, k2 = cur.k2;
+            boolean before = k1 < key1(start) || k1 == key1(start) && k2 < key2(start);
+            if (!before && rhs[start] == g[start])
+                break;
+            setKey(cur);
+            if (k1 < cur.k1 || k1 == cur.k1 && k2 < cur.k2) {
+                openQueue.siftDown(0, cur);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                openQueue.poll();
+                updateNeighbors(u);
+            } else {
+                g[u] = INF;
+                updateVertex(u);
+                updateNeighbors(u);
+            }
+        }
+    }
+
+    private void updateNeighbors(int u) {
+        int x = u % width, y = u / width;
+        for (int m = 0; m < 8; m++) {
+            int nx = x + dx[m], ny = y + dy[m];
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height)
+                updateVertex(ny * width + nx);
+        }
+    }
+
+    /**
+     * Recomputes rhs of u and puts u in the queue iff it is inconsistent
+     */
+    private void updateVertex(int u) {
+        if (u != dest)
+            rhs[u] = walls.get(u) ? INF : minSuccessor(u);
+        probe.id = u;
+        int i = openQueue.indexOf(probe);
+        if (g[u] != rhs[u]) {
+            if (i == -1) {
+                Node n = new Node(u);
+                setKey(n);
+                openQueue.add(n);
+            } else {
+                Node n = openQueue.get(i);
+                setKey(n);
+                openQueue.siftDown(i, n);
+                if (openQueue.get(i) == n)
+                    openQueue.siftUp(i, n);
+            }
+        } else if (i != -1) {
+            openQueue.removeAt(i);
+        }
+    }
+
+    private int minSuccessor(int u) {
+        int x = u % width, y = u / width;
+        int min = INF;
+        for (int m = 0; m < 8; m++) {
+            int nx = x + dx[m], ny = y + dy[m];
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+                continue;
+            int v = ny * width + nx;
+            if (!walls.get(v) && g[v] != INF && g[v] + 1 < min)
+                min = g[v] + 1;
+        }
+        return min;
+    }
+
+    private void setKey(Node n) {
+        n.k1 = key1(n.id);
+        n.k2 = key2(n.id);
+    }
+
+    private int key1(int u) {
+        int k = key2(u);
+        return k == INF ? INF : k + estimate(start, u) + km;
+    }
+
+    private int key2(int u) {
+        return Math.min(g[u], rhs[u]);
+    }
+
+    private int estimate(int a, int b) {
+        return Math.max(Math.abs(a % width - b % width), Math.abs(a / width - b / width));
+    }
+}
@@ -0,0 +1,153 @@
+package cn.yescallop.algorithm.maze;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Distances of every cell to the nearest of some sources, usually the
+ * destination, so that any number of agents can walk there without search
+ * <p>
+ * The field is built by a breadth-first search one level at a time. Each
+ * level's frontier is split among fork-join tasks, and a cell joins the
+ * next frontier through whichever task first claims it with a CAS.
+ * A path is then read off by stepping to any neighbour one closer.
+ *
+ * @author Scallop Ye
+ */
+class DistanceField {
+
+    static final int UNREACHABLE = -1;
+
+    /**
+     * Frontier cells one task expands without splitting further
+     */
+    private static final int THRESHOLD = 4096;
+
+    private static final VarHandle DIST = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    private final Grid grid;
+    private final int width, height;
+    private final int[] dist;
+
+    private DistanceField(Grid grid) {
+        this.grid = grid;
+        this.width = grid.width;
+        this.height = grid.height;
+        this.dist = new int[width * height];
+        Arrays.fill(dist, UNREACHABLE);
+    }
+
+    static DistanceField build(Grid grid) {
+        return build(grid, new int[]{grid.destX}, new int[]{grid.destY});
+    }
+
+    /**
+     * Builds the field of the cells at (xs[i], ys[i]), skipping those that
+     * are walls
+     */
+    static DistanceField build(Grid grid, int[] xs, int[] ys) {
+        if (xs.length != ys.length)
+            throw new IllegalArgumentException("Coordinates differ in number");
+        DistanceField f = new DistanceField(grid);
+        int[] frontier = new int[xs.length];
+        int n = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (xs[i] < 0 || xs[i] >= f.width || ys[i] < 0 || ys[i] >= f.height)
+                throw new IndexOutOfBoundsException("Cell: " + xs[i] + ", " + ys[i]);
+            int id = ys[i] * f.width + xs[i];
+            if (!grid.isWall(xs[i], ys[i]) && f.dist[id] == UNREACHABLE) {
+                f.dist[id] = 0;
+                frontier[n++] = id;
+            }
+        }
+        frontier = Arrays.copyOf(frontier, n);
+        for (int d = 1; frontier.length != 0; d++)
+            frontier = f.new Expand(frontier, 0, frontier.length, d).invoke();
+        return f;
+    }
+
+    int distance(int x, int y) {
+        return dist[y * width + x];
+    }
+
+    /**
+     * Returns the moves from (x, y) to the nearest source,
+     * or null if none can be reached
+     */
+    int[] path(int x, int y) {
+        int d = dist[y * width + x];
+        if (d == UNREACHABLE)
+            return null;
+        int[] path = new int[d];
+        for (int i = 0; i < path.length; i++) {
+            for (int m = 0; ; m++) {
+                int nx = x + dx[m], ny = y + dy[m];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && dist[ny * width + nx] == d - 1) {
+                    path[i] = m;
+                    x = nx;
+                    y = ny;
+                    d--;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Claims the unvisited neighbours of frontier[from..to) at distance d,
+     * returning them as the next frontier
+     */
+    private class Expand extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        final int[] frontier;
+        final int from, to;
+        final int d;
+
+        Expand(int[] frontier, int from, int to, int d) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.d = d;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                Expand left = new Expand(frontier, from, mid, d);
+                left.fork();
+                int[] b = new Expand(frontier, mid, to, d).compute();
+                int[] a = left.join();
+                int[] res = Arrays.copyOf(a, a.length + b.length);
+                System.arraycopy(b, 0, res, a.length, b.length);
+                return res;
+            }
+            int[] next = new int[(to - from) * 2 + 8];
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                int x = frontier[i] % width, y = frontier[i] / width;
+                for (int m = 0; m < 8; m++) {
+                    int nx = x + dx[m], ny = y + dy[m];
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+                        continue;
+                    int id = ny * width + nx;
+                    if (dist[id] != UNREACHABLE || grid.isWall(nx, ny)
+                            || !DIST.compareAndSet(dist, id, UNREACHABLE, d))
+                        continue;
+                    if (n == next.length)
+                        next = Arrays.copyOf(next, n << 1);
+                    next[n++] = id;
+                }
+            }
+            return Arrays.copyOf(next, n);
+        }
+    }
+}
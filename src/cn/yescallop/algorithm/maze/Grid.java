@@ -0,0 +1,208 @@
+package cn.yescallop.algorithm.maze;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * A rectangular maze read directly from its cell buffer
+ * <p>
+ * The binary file starts with a 24-byte header of magic, encoding, width,
+ * height and destination, followed by the cells row by row, either one
+ * byte each holding the value of the text map or one bit each set for a
+ * wall. It is memory-mapped on load, so no cell is copied or parsed.
+ * <p>
+ * The text map, one {@code [a, b, ...]} line per row, is parsed byte by
+ * byte in a single pass and can be converted to either encoding.
+ *
+ * @author Scallop Ye
+ */
+public class Grid {
+
+    private static final int MAGIC = 0x4d415a31; // "MAZ1"
+
+    private static final int HEADER = 24;
+
+    public static final int BYTES = 0;
+
+    public static final int BITS = 1;
+
+    final int width;
+    final int height;
+    final int destX;
+    final int destY;
+    private final int encoding;
+    private final ByteBuffer cells;
+
+    private Grid(int encoding, int width, int height, int destX, int destY, ByteBuffer cells) {
+        this.encoding = encoding;
+        this.width = width;
+        this.height = height;
+        this.destX = destX;
+        this.destY = destY;
+        this.cells = cells;
+    }
+
+    /**
+     * Usage: {@code Grid <text> <binary> [bits]}
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        boolean bits = args.length > 2 && args[2].equals("bits");
+        convert(Paths.get(args[0]), Paths.get(args[1]), bits ? BITS : BYTES);
+        System.out.println("Converted " + args[0] + " in " + (System.currentTimeMillis() - start) / 1000d + "s");
+    }
+
+    /**
+     * Opens a binary grid, or parses a text one into memory
+     */
+    public static Grid open(Path file) throws IOException {
+        return file.getFileName().toString().endsWith(".txt") ? readText(file) : load(file);
+    }
+
+    public static Grid load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (ch.size() < HEADER || buffer.getInt() != MAGIC)
+                throw new IOException("Not a grid: " + file);
+            int encoding = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int destX = buffer.getInt();
+            int destY = buffer.getInt();
+            if (encoding != BYTES && encoding != BITS)
+                throw new IOException("Unknown encoding: " + encoding);
+            if (ch.size() != HEADER + cellBytes(encoding, width, height))
+                throw new IOException("Truncated grid: " + file);
+            return new Grid(encoding, width, height, destX, destY, buffer.slice());
+        }
+    }
+
+    public static Grid readText(Path file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            int[] header = parse(in, out, BYTES);
+            return new Grid(BYTES, header[0], header[1], header[2], header[3], ByteBuffer.wrap(out.toByteArray()));
+        }
+    }
+
+    /**
+     * Returns a grid whose cells are each a wall with the given probability,
+     * except the start at (0, 0) and the destination in the opposite corner
+     */
+    static Grid random(int width, int height, double walls, Random random) {
+        if (width < 1 || height < 1 || width * height < 2)
+            throw new IllegalArgumentException("Size: " + width + "x" + height);
+        byte[] cells = new byte[width * height];
+        for (int i = 1; i < cells.length - 1; i++)
+            cells[i] = (byte) (random.nextDouble() < walls ? 1 : 0);
+        cells[cells.length - 1] = 2;
+        return new Grid(BYTES, width, height, width - 1, height - 1, ByteBuffer.wrap(cells));
+    }
+
+    /**
+     * Converts a text map to a binary grid with the given encoding
+     */
+    public static void convert(Path text, Path file, int encoding) throws IOException {
+        if (encoding != BYTES && encoding != BITS)
+            throw new IllegalArgumentException("Unknown encoding: " + encoding);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(text));
+             FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(ch.position(HEADER)), 1 << 16);
+            int[] header = parse(in, out, encoding);
+            out.flush();
+            ByteBuffer head = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(encoding)
+                    .putInt(header[0]).putInt(header[1]).putInt(header[2]).putInt(header[3]);
+            head.flip();
+            long pos = 0;
+            while (head.hasRemaining())
+                pos += ch.write(head, pos);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long cellBytes(int encoding, long width, long height) {
+        return encoding == BITS ? (width * height + 7) >> 3 : width * height;
+    }
+
+    /**
+     * Streams the cells of a text map to out, returning
+     * width, height, destX and destY
+     */
+    private static int[] parse(InputStream in, OutputStream out, int encoding) throws IOException {
+        int width = -1, height = 0, x = 0;
+        int destX = -1, destY = -1;
+        int value = -1;
+        int bits = 0, bitCount = 0;
+        boolean inRow = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c >= '0' && c <= '9') {
+                value = (value == -1 ? 0 : value * 10) + c - '0';
+                continue;
+            }
+            if (value != -1) {
+                if (!inRow)
+                    throw new IOException("Cell outside of a row at line " + (height + 1));
+                if (value == 2) {
+                    destX = x;
+                    destY = height;
+                }
+                if (encoding == BITS) {
+                    if (value == 1)
+                        bits |= 1 << bitCount;
+                    if (++bitCount == 8) {
+                        out.write(bits);
+                        bits = bitCount = 0;
+                    }
+                } else {
+                    out.write(value);
+                }
+                x++;
+                value = -1;
+            }
+            if (c == '[') {
+                inRow = true;
+                x = 0;
+            } else if (c == ']') {
+                if (width == -1)
+                    width = x;
+                else if (x != width)
+                    throw new IOException("Row " + (height + 1) + " has " + x + " cells, expected " + width);
+                inRow = false;
+                height++;
+            }
+        }
+        if (value != -1 || inRow)
+            throw new IOException("Unterminated row " + (height + 1));
+        if (bitCount != 0)
+            out.write(bits);
+        return new int[]{Math.max(width, 0), height, destX, destY};
+    }
+
+    int get(int x, int y) {
+        int i = y * width + x;
+        if (encoding == BITS)
+            return cells.get(i >>> 3) >>> (i & 7) & 1;
+        return cells.get(i);
+    }
+
+    boolean isWall(int x, int y) {
+        return get(x, y) == 1;
+    }
+}
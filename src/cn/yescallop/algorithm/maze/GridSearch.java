@@ -0,0 +1,150 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntPriorityQueue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A* over a grid with all per-cell state in flat arrays
+ * <p>
+ * g, the move reaching each cell and its open or closed mark live in
+ * arrays indexed by {@code y * width + x}, and the open list holds cell
+ * ids, so nothing is allocated while searching. Marks carry the stamp of
+ * the query that set them, so one instance serves any number of queries
+ * without clearing, growing only for a larger grid. An instance is not
+ * thread-safe; use one per thread.
+ * <p>
+ * Searches make the same queue operations in the same order as
+ * {@link Main}, and so return the same path.
+ *
+ * @author Scallop Ye
+ */
+class GridSearch {
+
+    private static final int CHECK_INTERVAL = 4096;
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    private int[] g = new int[0];
+    private byte[] move = new byte[0];
+
+    /**
+     * {@code stamp} if open and {@code stamp + 1} if closed in this query
+     */
+    private int[] mark = new int[0];
+    private int stamp = 0;
+
+    private final IntPriorityQueue openQueue = new IntPriorityQueue();
+
+    int[] findPath(Grid grid) {
+        return findPath(grid, 0, 0, grid.destX, grid.destY);
+    }
+
+    /**
+     * Returns a shortest path between the cells, or null if there is none,
+     * in particular if either is a wall
+     */
+    int[] findPath(Grid grid, int startX, int startY, int destX, int destY) {
+        try {
+            return search(grid, startX, startY, destX, destY, false, 0);
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Like {@link #findPath(Grid, int, int, int, int)}, but gives up once
+     * {@link System#nanoTime()} passes deadline or the thread is interrupted
+     */
+    int[] findPath(Grid grid, int startX, int startY, int destX, int destY, long deadline) throws TimeoutException {
+        return search(grid, startX, startY, destX, destY, true, deadline);
+    }
+
+    private int[] search(Grid grid, int startX, int startY, int destX, int destY,
+                         boolean timed, long deadline) throws TimeoutException {
+        int width = grid.width, height = grid.height;
+        int start = checkCell(grid, startX, startY);
+        checkCell(grid, destX, destY);
+        if (grid.isWall(startX, startY) || grid.isWall(destX, destY))
+            return null;
+        prepare(width * height);
+        int open = stamp, closed = stamp + 1;
+
+        g[start] = 0;
+        mark[start] = open;
+        openQueue.clear();
+        openQueue.offer(start, estimate(startX, startY, destX, destY));
+
+        for (int expanded = 1; openQueue.size() != 0; expanded++) {
+            if (timed && expanded % CHECK_INTERVAL == 0
+                    && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()))
+                throw new TimeoutException("Expanded cells: " + expanded);
+            int cur = openQueue.poll();
+            int curX = cur % width, curY = cur / width;
+            if (curX == destX && curY == destY)
+                return reconstructPath(cur, width);
+            mark[cur] = closed;
+
+            int ng = g[cur] + 1;
+            for (int m = 0; m < 8; m++) {
+                int x = curX + dx[m];
+                int y = curY + dy[m];
+                if (x == -1 || x == width || y == -1 || y == height || grid.isWall(x, y))
+                    continue;
+                int id = y * width + x;
+                if (mark[id] == closed)
+                    continue;
+                if (mark[id] != open) {
+                    mark[id] = open;
+                    g[id] = ng;
+                    move[id] = (byte) m;
+                    openQueue.offer(id, ng + estimate(x, y, destX, destY));
+                } else if (ng < g[id]) {
+                    g[id] = ng;
+                    move[id] = (byte) m;
+                    openQueue.decreaseKey(id, ng + estimate(x, y, destX, destY));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int checkCell(Grid grid, int x, int y) {
+        if (x < 0 || x >= grid.width || y < 0 || y >= grid.height)
+            throw new IndexOutOfBoundsException("Cell: " + x + ", " + y);
+        return y * grid.width + x;
+    }
+
+    /**
+     * Makes room for the given number of cells and starts a new query
+     */
+    private void prepare(int cells) {
+        if (mark.length < cells) {
+            g = new int[cells];
+            move = new byte[cells];
+            mark = new int[cells];
+            stamp = 0;
+        }
+        stamp += 2;
+        if (stamp < 0) {
+            Arrays.fill(mark, 0);
+            stamp = 2;
+        }
+    }
+
+    private static int estimate(int x, int y, int destX, int destY) {
+        return Math.max(Math.abs(destX - x), Math.abs(destY - y));
+    }
+
+    private int[] reconstructPath(int id, int width) {
+        int[] path = new int[g[id]];
+        for (int i = path.length - 1; i >= 0; i--) {
+            int m = move[id];
+            path[i] = m;
+            id -= dy[m] * width + dx[m];
+        }
+        return path;
+    }
+}
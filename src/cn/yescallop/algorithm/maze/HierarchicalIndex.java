@@ -0,0 +1,451 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntPriorityQueue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hierarchical path-finding A* (HPA*) over a fixed maze
+ * <p>
+ * The grid is cut into square clusters. Where two clusters touch, each
+ * run of cells open on both sides of the border gets a transition at its
+ * middle, or at both ends if it is long, and a diagonal step across a
+ * corner with both flanking cells walled gets one of its own. The border
+ * cells of the transitions are the nodes of an abstract graph whose edges
+ * are the transitions and the shortest distances between the nodes of
+ * each cluster, all found once when the index is built.
+ * <p>
+ * A query links its endpoints to the nodes of their clusters, searches the
+ * abstract graph and only then searches inside the clusters along the
+ * route found. Paths are valid but may be slightly longer than optimal.
+ * The index is read-only after building, so queries may run concurrently;
+ * each thread keeps its own search buffers for the next query.
+ *
+ * @author Scallop Ye
+ */
+class HierarchicalIndex {
+
+    static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Runs at least this long get a transition at each end
+     */
+    private static final int LONG_RUN = 6;
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    /**
+     * Move of each direction, indexed by {@code (dy + 1) * 3 + dx + 1}
+     */
+    private static final int[] MOVES = {7, 0, 5, 3, -1, 1, 4, 2, 6};
+
+    private final Grid grid;
+    private final int width, height;
+    private final int clusterSize;
+    private final int clustersX;
+
+    /**
+     * Cell id of each node
+     */
+    private int[] cellOf;
+
+    /**
+     * Nodes of cluster c are {@code clusterNodes[clusterStart[c]..clusterStart[c + 1])}
+     */
+    private int[] clusterStart, clusterNodes;
+
+    /**
+     * Edges of node u are {@code edgeStart[u]..edgeStart[u + 1]}
+     */
+    private int[] edgeStart, edgeTo, edgeCost;
+
+    private final ThreadLocal<Query> queries;
+
+    private HierarchicalIndex(Grid grid, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size: " + clusterSize);
+        this.grid = grid;
+        this.width = grid.width;
+        this.height = grid.height;
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.queries = ThreadLocal.withInitial(() -> new Query(cellOf.length + 2, clusterSize));
+    }
+
+    static HierarchicalIndex build(Grid grid) {
+        return build(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    static HierarchicalIndex build(Grid grid, int clusterSize) {
+        HierarchicalIndex index = new HierarchicalIndex(grid, clusterSize);
+        index.build();
+        return index;
+    }
+
+    int nodes() {
+        return cellOf.length;
+    }
+
+    int edges() {
+        return edgeTo.length;
+    }
+
+    private void build() {
+        Map<Integer, Integer> nodeOf = new HashMap<>();
+        IntList cells = new IntList();
+        IntList edges = new IntList(); // from, to, cost
+
+        // transitions
+        int c = clusterSize;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean right = x % c == c - 1 && x + 1 < width;
+                boolean down = y % c == c - 1 && y + 1 < height;
+                if (right && y % c == 0)
+                    addRuns(nodeOf, cells, edges, x, y, 0, 1);
+                if (down && x % c == 0)
+                    addRuns(nodeOf, cells, edges, x, y, 1, 0);
+                for (int m = 5; m <= 6; m++) {
+                    int nx = x + dx[m], ny = y + dy[m];
+                    if (!free(x, y) || !free(nx, ny) || cluster(x, y) == cluster(nx, ny))
+                        continue;
+                    if (!free(nx, y) && !free(x, ny))
+                        addEdge(nodeOf, cells, edges, y * width + x, ny * width + nx);
+                }
+            }
+        }
+        cellOf = cells.toArray();
+
+        // nodes by cluster
+        int clusters = clustersX * ((height + c - 1) / c);
+        clusterStart = new int[clusters + 1];
+        for (int cell : cellOf)
+            clusterStart[cluster(cell % width, cell / width) + 1]++;
+        for (int i = 0; i < clusters; i++)
+            clusterStart[i + 1] += clusterStart[i];
+        clusterNodes = new int[cellOf.length];
+        int[] fill = Arrays.copyOf(clusterStart, clusters);
+        for (int u = 0; u < cellOf.length; u++)
+            clusterNodes[fill[cluster(cellOf[u] % width, cellOf[u] / width)]++] = u;
+
+        // distances inside each cluster
+        Scratch s = new Scratch(c);
+        for (int k = 0; k < clusters; k++)
+            clusterEdges(k, s, edges);
+
+        int n = cellOf.length, e = edges.size / 3;
+        edgeStart = new int[n + 1];
+        edgeTo = new int[e];
+        edgeCost = new int[e];
+        for (int i = 0; i < e; i++)
+            edgeStart[edges.get(i * 3) + 1]++;
+        for (int i = 0; i < n; i++)
+            edgeStart[i + 1] += edgeStart[i];
+        fill = Arrays.copyOf(edgeStart, n);
+        for (int i = 0; i < e; i++) {
+            int j = fill[edges.get(i * 3)]++;
+            edgeTo[j] = edges.get(i * 3 + 1);
+            edgeCost[j] = edges.get(i * 3 + 2);
+        }
+    }
+
+    /**
+     * Adds the edges between the nodes of a cluster
+     */
+    private void clusterEdges(int k, Scratch s, IntList edges) {
+        for (int i = clusterStart[k]; i < clusterStart[k + 1]; i++) {
+            int u = clusterNodes[i];
+            bfs(k, cellOf[u], -1, s);
+            for (int j = clusterStart[k]; j < clusterStart[k + 1]; j++) {
+                int v = clusterNodes[j];
+                int d = s.dist[local(k, cellOf[v])];
+                if (v != u && d != -1) {
+                    edges.add(u);
+                    edges.add(v);
+                    edges.add(d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds transitions for the runs along the border from (x, y) in
+     * direction (ddx, ddy), across which lie the cells one step further
+     * perpendicular to it
+     */
+    private void addRuns(Map<Integer, Integer> nodeOf, IntList cells, IntList edges,
+                         int x, int y, int ddx, int ddy) {
+        int ox = ddy, oy = ddx; // step across the border
+        int len = ddx != 0 ? Math.min(clusterSize, width - x) : Math.min(clusterSize, height - y);
+        int start = -1;
+        for (int i = 0; i <= len; i++) {
+            int ax = x + i * ddx, ay = y + i * ddy;
+            boolean open = i < len && free(ax, ay) && free(ax + ox, ay + oy);
+            if (open && start == -1) {
+                start = i;
+            } else if (!open && start != -1) {
+                int end = i - 1;
+                if (end - start + 1 >= LONG_RUN) {
+                    addTransition(nodeOf, cells, edges, x, y, ddx, ddy, start);
+                    addTransition(nodeOf, cells, edges, x, y, ddx, ddy, end);
+                } else {
+                    addTransition(nodeOf, cells, edges, x, y, ddx, ddy, (start + end) >>> 1);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private void addTransition(Map<Integer, Integer> nodeOf, IntList cells, IntList edges,
+                               int x, int y, int ddx, int ddy, int i) {
+        int ax = x + i * ddx, ay = y + i * ddy;
+        addEdge(nodeOf, cells, edges, ay * width + ax, (ay + ddx) * width + ax + ddy);
+    }
+
+    private static void addEdge(Map<Integer, Integer> nodeOf, IntList cells, IntList edges, int a, int b) {
+        int u = node(nodeOf, cells, a), v = node(nodeOf, cells, b);
+        edges.add(u);
+        edges.add(v);
+        edges.add(1);
+        edges.add(v);
+        edges.add(u);
+        edges.add(1);
+    }
+
+    private static int node(Map<Integer, Integer> nodeOf, IntList cells, int cell) {
+        Integer u = nodeOf.get(cell);
+        if (u == null) {
+            u = cells.size;
+            nodeOf.put(cell, u);
+            cells.add(cell);
+        }
+        return u;
+    }
+
+    /**
+     * Returns a path from (startX, startY) to (destX, destY),
+     * or null if there is none
+     */
+    int[] findPath(int startX, int startY, int destX, int destY) {
+        if (!free(startX, startY) || !free(destX, destY))
+            return null;
+        int n = cellOf.length;
+        int start = n, dest = n + 1;
+        int startCell = startY * width + startX, destCell = destY * width + destX;
+        int cs = cluster(startX, startY), cd = cluster(destX, destY);
+        Query q = queries.get();
+        q.next();
+        Scratch s = q.scratch;
+
+        // links of both endpoints to the nodes of their clusters
+        int[] toStart = new int[clusterStart[cs + 1] - clusterStart[cs]];
+        bfs(cs, startCell, -1, s);
+        for (int i = 0; i < toStart.length; i++)
+            toStart[i] = s.dist[local(cs, cellOf[clusterNodes[clusterStart[cs] + i]])];
+        int direct = cs == cd ? s.dist[local(cd, destCell)] : -1;
+        int[] toDest = new int[clusterStart[cd + 1] - clusterStart[cd]];
+        bfs(cd, destCell, -1, s);
+        for (int i = 0; i < toDest.length; i++)
+            toDest[i] = s.dist[local(cd, cellOf[clusterNodes[clusterStart[cd] + i]])];
+
+        q.seen[start] = q.stamp;
+        q.g[start] = 0;
+        q.parent[start] = -1;
+        q.openQueue.offer(start, estimate(startCell, destCell));
+
+        while (q.openQueue.size() != 0) {
+            int u = q.openQueue.poll();
+            if (u == dest) {
+                q.openQueue.clear();
+                return refine(q.parent, start, dest, startCell, destCell, s);
+            }
+            q.closed[u] = q.stamp;
+            if (u == start) {
+                for (int i = 0; i < toStart.length; i++)
+                    relax(q, u, clusterNodes[clusterStart[cs] + i], toStart[i], destCell);
+                relax(q, u, dest, direct, destCell);
+                continue;
+            }
+            for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++)
+                relax(q, u, edgeTo[i], edgeCost[i], destCell);
+            // nodes of a cluster are in ascending order
+            int i = Arrays.binarySearch(clusterNodes, clusterStart[cd], clusterStart[cd + 1], u);
+            if (i >= 0)
+                relax(q, u, dest, toDest[i - clusterStart[cd]], destCell);
+        }
+        return null;
+    }
+
+    private void relax(Query q, int u, int v, int cost, int destCell) {
+        if (cost == -1 || q.closed[v] == q.stamp)
+            return;
+        int g = q.g[u] + cost;
+        if (q.seen[v] == q.stamp && g >= q.g[v])
+            return;
+        q.seen[v] = q.stamp;
+        q.g[v] = g;
+        q.parent[v] = u;
+        int f = g + (v == cellOf.length + 1 ? 0 : estimate(cellOf[v], destCell));
+        if (q.openQueue.contains(v))
+            q.openQueue.decreaseKey(v, f);
+        else
+            q.openQueue.offer(v, f);
+    }
+
+    private int estimate(int cell, int destCell) {
+        return Math.max(Math.abs(cell % width - destCell % width), Math.abs(cell / width - destCell / width));
+    }
+
+    /**
+     * Expands the abstract route ending at dest into single moves
+     */
+    private int[] refine(int[] parent, int start, int dest, int startCell, int destCell, Scratch s) {
+        IntList route = new IntList();
+        for (int u = dest; u != -1; u = parent[u])
+            route.add(u == start ? startCell : u == dest ? destCell : cellOf[u]);
+        IntList path = new IntList();
+        for (int i = route.size - 1; i > 0; i--) {
+            int a = route.get(i), b = route.get(i - 1);
+            int ax = a % width, ay = a / width, bx = b % width, by = b / width;
+            int k = cluster(ax, ay);
+            if (k != cluster(bx, by)) {
+                path.add(MOVES[(by - ay + 1) * 3 + bx - ax + 1]);
+                continue;
+            }
+            bfs(k, a, b, s);
+            int from = path.size;
+            for (int l = local(k, b), x = bx, y = by; x != ax || y != ay; l = local(k, y * width + x)) {
+                int m = s.move[l];
+                path.add(m);
+                x -= dx[m];
+                y -= dy[m];
+            }
+            path.reverse(from);
+        }
+        return path.toArray();
+    }
+
+    private boolean free(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && !grid.isWall(x, y);
+    }
+
+    private int cluster(int x, int y) {
+        return y / clusterSize * clustersX + x / clusterSize;
+    }
+
+    private int local(int cluster, int cell) {
+        int x = cell % width - cluster % clustersX * clusterSize;
+        int y = cell / width - cluster / clustersX * clusterSize;
+        return y * clusterSize + x;
+    }
+
+    /**
+     * Fills the distances from source to the cells of the cluster, stopping
+     * early at target unless it is -1
+     */
+    private void bfs(int cluster, int source, int target, Scratch s) {
+        int c = clusterSize;
+        int x0 = cluster % clustersX * c, y0 = cluster / clustersX * c;
+        int x1 = Math.min(x0 + c, width), y1 = Math.min(y0 + c, height);
+        Arrays.fill(s.dist, -1);
+        int head = 0, tail = 0;
+        s.dist[local(cluster, source)] = 0;
+        s.queue[tail++] = source;
+        while (head != tail) {
+            int cell = s.queue[head++];
+            if (cell == target)
+                return;
+            int x = cell % width, y = cell / width;
+            int d = s.dist[local(cluster, cell)];
+            for (int m = 0; m < 8; m++) {
+                int nx = x + dx[m], ny = y + dy[m];
+                if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1 || grid.isWall(nx, ny))
+                    continue;
+                int l = (ny - y0) * c + nx - x0;
+                if (s.dist[l] == -1) {
+                    s.dist[l] = d + 1;
+                    s.move[l] = (byte) m;
+                    s.queue[tail++] = ny * width + nx;
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-cluster buffers of one query or build
+     */
+    private static class Scratch {
+
+        final int[] dist;
+        final byte[] move;
+        final int[] queue;
+
+        Scratch(int clusterSize) {
+            int cells = clusterSize * clusterSize;
+            this.dist = new int[cells];
+            this.move = new byte[cells];
+            this.queue = new int[cells];
+        }
+    }
+
+    /**
+     * Search state of one thread, reused across its queries. An entry is
+     * only valid if its stamp is that of the current query.
+     */
+    private static class Query {
+
+        final int[] g, parent;
+        final int[] seen, closed;
+        final IntPriorityQueue openQueue;
+        final Scratch scratch;
+        int stamp;
+
+        Query(int nodes, int clusterSize) {
+            this.g = new int[nodes];
+            this.parent = new int[nodes];
+            this.seen = new int[nodes];
+            this.closed = new int[nodes];
+            this.openQueue = new IntPriorityQueue(nodes);
+            this.scratch = new Scratch(clusterSize);
+        }
+
+        void next() {
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+        }
+    }
+
+    private static class IntList {
+
+        int[] a = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == a.length)
+                a = Arrays.copyOf(a, size << 1);
+            a[size++] = v;
+        }
+
+        int get(int i) {
+            return a[i];
+        }
+
+        void reverse(int from) {
+            for (int i = from, j = size - 1; i < j; i++, j--) {
+                int t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(a, size);
+        }
+    }
+}
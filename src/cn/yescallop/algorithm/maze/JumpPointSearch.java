@@ -0,0 +1,169 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntIndexedQueue;
+import cn.yescallop.algorithm.util.LongHashSet;
+import cn.yescallop.algorithm.util.PathStore;
+
+/**
+ * Jump point search on the 8-connected maze
+ * <p>
+ * Instead of every neighbour, a node only generates the jump points in
+ * the directions left after pruning those reached at no greater cost
+ * without it: straight on, the two straight parts of a diagonal, and
+ * neighbours forced by a wall beside the way it came. A jump runs in one
+ * direction until it hits a wall, the destination or a cell with a
+ * forced neighbour; a diagonal jump also stops where either of its
+ * straight parts would. Moves may cut corners, as in {@link Main}.
+ * <p>
+ * Jumps are recorded one step at a time, so the path has the same form
+ * and length as that of the plain search.
+ *
+ * @author Scallop Ye
+ */
+class JumpPointSearch {
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    /**
+     * Move of each direction, indexed by {@code (dy + 1) * 3 + dx + 1}
+     */
+    private static final int[] MOVES = {7, 0, 5, 3, -1, 1, 4, 2, 6};
+
+    private final Grid grid;
+    private final int width, height;
+
+    private JumpPointSearch(Grid grid) {
+        this.grid = grid;
+        this.width = grid.width;
+        this.height = grid.height;
+    }
+
+    static int[] findPath(Grid grid, IntIndexedQueue openQueue) {
+        return new JumpPointSearch(grid).search(openQueue);
+    }
+
+    private int[] search(IntIndexedQueue openQueue) {
+        int destX = grid.destX, destY = grid.destY;
+        Status[] nodes = new Status[width * height];
+        LongHashSet closedSet = new LongHashSet();
+        PathStore pathStore = new PathStore();
+
+        Status initialStatus = new Status(0, 0, 0, PathStore.ROOT);
+        nodes[0] = initialStatus;
+        openQueue.offer(0, initialStatus.f);
+
+        while (openQueue.size() != 0) {
+            int curId = openQueue.poll();
+            Status cur = nodes[curId];
+            if (cur.x == destX && cur.y == destY) {
+                return pathStore.path(cur.path);
+            }
+            closedSet.add(curId);
+            nodes[curId] = null;
+
+            int directions = directions(cur.x, cur.y,
+                    cur.path == PathStore.ROOT ? -1 : pathStore.move(cur.path));
+            for (int m = 0; m < 8; m++) {
+                if ((directions >>> m & 1) == 0)
+                    continue;
+                int id = jump(cur.x, cur.y, dx[m], dy[m]);
+                if (id == -1 || closedSet.contains(id))
+                    continue;
+                int x = id % width, y = id / width;
+                int steps = Math.max(Math.abs(x - cur.x), Math.abs(y - cur.y));
+                int g = cur.g + steps;
+                Status other = nodes[id];
+                if (other == null) {
+                    Status neighbor = new Status(x, y, g, record(pathStore, cur.path, m, steps));
+                    neighbor.estimateCost(destX, destY);
+                    nodes[id] = neighbor;
+                    openQueue.offer(id, neighbor.f);
+                } else if (g < other.g) {
+                    pathStore.set(other.path, record(pathStore, cur.path, m, steps - 1), m);
+                    other.g = g;
+                    other.f = other.g + other.h;
+                    openQueue.decreaseKey(id, other.f);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int record(PathStore pathStore, int path, int m, int steps) {
+        for (int i = 0; i < steps; i++)
+            path = pathStore.add(path, m);
+        return path;
+    }
+
+    private boolean free(int x, int y) {
+        return x != -1 && x != width && y != -1 && y != height && !grid.isWall(x, y);
+    }
+
+    private boolean blocked(int x, int y) {
+        return !free(x, y);
+    }
+
+    /**
+     * Returns the bit set of directions to search from (x, y),
+     * reached by move m or the start if m is -1
+     */
+    private int directions(int x, int y, int m) {
+        if (m == -1)
+            return 0xff;
+        int ddx = dx[m], ddy = dy[m];
+        int res = 1 << m;
+        if (ddx != 0 && ddy != 0) {
+            res |= 1 << move(ddx, 0) | 1 << move(0, ddy);
+            if (blocked(x - ddx, y))
+                res |= 1 << move(-ddx, ddy);
+            if (blocked(x, y - ddy))
+                res |= 1 << move(ddx, -ddy);
+        } else if (ddx != 0) {
+            if (blocked(x, y - 1))
+                res |= 1 << move(ddx, -1);
+            if (blocked(x, y + 1))
+                res |= 1 << move(ddx, 1);
+        } else {
+            if (blocked(x - 1, y))
+                res |= 1 << move(-1, ddy);
+            if (blocked(x + 1, y))
+                res |= 1 << move(1, ddy);
+        }
+        return res;
+    }
+
+    private static int move(int ddx, int ddy) {
+        return MOVES[(ddy + 1) * 3 + ddx + 1];
+    }
+
+    /**
+     * Returns the id of the first jump point from (x, y) in direction
+     * (ddx, ddy), or -1 if a wall comes first
+     */
+    private int jump(int x, int y, int ddx, int ddy) {
+        while (true) {
+            x += ddx;
+            y += ddy;
+            if (!free(x, y))
+                return -1;
+            if (x == grid.destX && y == grid.destY)
+                return y * width + x;
+            if (ddx != 0 && ddy != 0) {
+                if (blocked(x - ddx, y) && free(x - ddx, y + ddy)
+                        || blocked(x, y - ddy) && free(x + ddx, y - ddy))
+                    return y * width + x;
+                if (jump(x, y, ddx, 0) != -1 || jump(x, y, 0, ddy) != -1)
+                    return y * width + x;
+            } else if (ddx != 0) {
+                if (blocked(x, y - 1) && free(x + ddx, y - 1)
+                        || blocked(x, y + 1) && free(x + ddx, y + 1))
+                    return y * width + x;
+            } else {
+                if (blocked(x - 1, y) && free(x - 1, y + ddy)
+                        || blocked(x + 1, y) && free(x + 1, y + ddy))
+                    return y * width + x;
+            }
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package cn.yescallop.algorithm.maze;
 
-import cn.yescallop.algorithm.util.PriorityHashQueue;
+import cn.yescallop.algorithm.util.HashDistributedSearch;
+import cn.yescallop.algorithm.util.IntIndexedQueue;
+import cn.yescallop.algorithm.util.LongHashSet;
+import cn.yescallop.algorithm.util.PathStore;
+import cn.yescallop.algorithm.util.SearchListener;
+import cn.yescallop.algorithm.util.SearchMetrics;
+import cn.yescallop.algorithm.util.SearchProblem;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * @author Scallop Ye
@@ -16,41 +21,71 @@ public class Main {
     private static int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
 
     public static void main(String[] args) {
-        int len;
-        int[][] matrix;
-        int destX = -1;
-        int destY = -1;
+        String mode = "";
+        String queue = "binary";
+        Path file = Paths.get("map.txt");
+        for (String arg : args) {
+            if (IntIndexedQueue.strategies().contains(arg))
+                queue = arg;
+            else if (arg.equals("parallel") || arg.equals("jps") || arg.equals("hpa")
+                    || arg.equals("dstar") || arg.equals("field") || arg.equals("flat")
+                    || arg.equals("distance") || arg.equals("cache") || arg.equals("metrics"))
+                mode = arg;
+            else
+                file = Paths.get(arg);
+        }
+        Grid grid;
         try {
-            BufferedReader br = new BufferedReader(new FileReader("map.txt"));
-            String line = br.readLine();
-            StringTokenizer st = new StringTokenizer(line.substring(1, line.length() - 1), ", ");
-            len = st.countTokens();
-            matrix = new int[len][len];
-            for (int y = 0; y < len; y++) {
-                if (y != 0) {
-                    line = br.readLine();
-                    st = new StringTokenizer(line.substring(1, line.length() - 1), ", ");
-                }
-                for (int x = 0; x < len; x++) {
-                    int n = Integer.parseInt(st.nextToken());
-                    matrix[y][x] = n;
-                    if (n == 2) {
-                        destX = x;
-                        destY = y;
-                    }
-                }
-            }
+            grid = Grid.open(file);
         } catch (IOException e) {
             e.printStackTrace();
             return;
         }
 
-        if (destX == -1) {
+        if (grid.destX == -1) {
             System.out.println("Destination not found!");
             System.exit(1);
         }
 
-        int[] path = findPath(matrix, destX, destY);
+        if (mode.equals("distance")) {
+            int d = BitGrid.of(grid).distance(0, 0, grid.destX, grid.destY);
+            if (d == -1) {
+                System.out.println("Path not found!");
+                System.exit(1);
+            }
+            System.out.println(d);
+            return;
+        }
+
+        int[] path;
+        if (mode.equals("parallel")) {
+            try {
+                path = findPathParallel(grid, Runtime.getRuntime().availableProcessors());
+            } catch (InterruptedException e) {
+                return;
+            }
+        } else if (mode.equals("hpa")) {
+            path = HierarchicalIndex.build(grid).findPath(0, 0, grid.destX, grid.destY);
+        } else if (mode.equals("flat")) {
+            path = new GridSearch().findPath(grid);
+        } else if (mode.equals("cache")) {
+            GridSearch search = new GridSearch();
+            PathCache cache = new PathCache(grid.width, grid.height, 1 << 20,
+                    (sx, sy, tx, ty) -> search.findPath(grid, sx, sy, tx, ty));
+            path = cache.findPath(0, 0, grid.destX, grid.destY);
+        } else if (mode.equals("field")) {
+            path = DistanceField.build(grid).path(0, 0);
+        } else if (mode.equals("dstar")) {
+            path = new DStarLite(grid).findPath();
+        } else if (mode.equals("jps")) {
+            path = JumpPointSearch.findPath(grid, IntIndexedQueue.create(queue, grid.width * grid.height));
+        } else if (mode.equals("metrics")) {
+            SearchMetrics metrics = new SearchMetrics(true);
+            path = findPath(grid, IntIndexedQueue.create(queue, grid.width * grid.height), metrics);
+            System.out.println(metrics);
+        } else {
+            path = findPath(grid, IntIndexedQueue.create(queue, grid.width * grid.height));
+        }
         if (path == null) {
             System.out.println("Path not found!");
             System.exit(1);
@@ -62,53 +97,141 @@ public class Main {
         System.out.println();
     }
 
-    private static int[] findPath(int[][] matrix, int destX, int destY) {
-        PriorityHashQueue<Status> openQueue = new PriorityHashQueue<>(Comparator.comparingInt(s -> s.f));
-        Set<Status> closedSet = new HashSet<>();
+    static int[] findPath(Grid grid, IntIndexedQueue openQueue) {
+        return findPath(grid, openQueue, null);
+    }
 
-        Status initialStatus = new Status(0, 0, 0, -1, null);
-        openQueue.add(initialStatus);
+    /**
+     * Searches with A*, reporting to listener if not null
+     */
+    static int[] findPath(Grid grid, IntIndexedQueue openQueue, SearchListener listener) {
+        listener = SearchMetrics.forSearch("maze.astar", listener);
+        boolean timed = listener != null && listener.timed();
+        int width = grid.width, height = grid.height;
+        int destX = grid.destX, destY = grid.destY;
+        Status[] nodes = new Status[width * height];
+        LongHashSet closedSet = new LongHashSet();
+        PathStore pathStore = new PathStore();
+
+        Status initialStatus = new Status(0, 0, 0, PathStore.ROOT);
+        nodes[0] = initialStatus;
+        openQueue.offer(0, initialStatus.f);
 
         while (openQueue.size() != 0) {
-            Status cur = openQueue.poll();
+            long t = timed ? System.nanoTime() : 0;
+            int curId = openQueue.poll();
+            if (timed)
+                listener.queueTime(System.nanoTime() - t);
+            Status cur = nodes[curId];
             if (cur.x == destX && cur.y == destY) {
-                return reconstructPath(cur);
+                int[] path = reconstructPath(pathStore, cur);
+                if (listener != null)
+                    listener.finished(path.length);
+                return path;
             }
-            closedSet.add(cur);
+            if (listener != null)
+                listener.expanded(cur.f, openQueue.size(), closedSet.size());
+            closedSet.add(curId);
+            nodes[curId] = null;
 
             for (int m = 0; m < 8; m++) {
                 int x = cur.x + dx[m];
                 int y = cur.y + dy[m];
-                if (x == -1 || x == matrix.length || y == -1 || y == matrix.length || matrix[y][x] == 1)
+                if (x == -1 || x == width || y == -1 || y == height || grid.isWall(x, y))
                     continue;
-                Status neighbor = new Status(x, y, cur.g + 1, m, cur);
-                if (closedSet.contains(neighbor))
+                if (listener != null)
+                    listener.generated();
+                int id = y * width + x;
+                if (closedSet.contains(id)) {
+                    if (listener != null)
+                        listener.duplicate();
                     continue;
-                int i = openQueue.indexOf(neighbor);
-                if (i != -1) {
-                    Status other = openQueue.get(i);
-                    if (neighbor.g < other.g) {
-                        other.parent = cur;
-                        other.m = m;
-                        other.g = neighbor.g;
-                        other.f = other.g + other.h;
-                        openQueue.siftUp(i, other);
-                    }
-                } else {
+                }
+                Status other = nodes[id];
+                if (other == null) {
+                    if (timed)
+                        t = System.nanoTime();
+                    Status neighbor = new Status(x, y, cur.g + 1, pathStore.add(cur.path, m));
                     neighbor.estimateCost(destX, destY);
-                    openQueue.add(neighbor);
+                    if (timed)
+                        listener.generateTime(System.nanoTime() - t);
+                    nodes[id] = neighbor;
+                    if (timed)
+                        t = System.nanoTime();
+                    openQueue.offer(id, neighbor.f);
+                    if (timed)
+                        listener.queueTime(System.nanoTime() - t);
+                } else if (cur.g + 1 < other.g) {
+                    if (listener != null)
+                        listener.reopened();
+                    pathStore.set(other.path, cur.path, m);
+                    other.g = cur.g + 1;
+                    other.f = other.g + other.h;
+                    if (timed)
+                        t = System.nanoTime();
+                    openQueue.decreaseKey(id, other.f);
+                    if (timed)
+                        listener.queueTime(System.nanoTime() - t);
+                } else if (listener != null) {
+                    listener.duplicate();
                 }
             }
         }
+        if (listener != null)
+            listener.finished(-1);
         return null;
     }
 
-    private static int[] reconstructPath(Status s) {
-        int[] path = new int[s.g];
-        for (int i = s.g - 1; i >= 0; i--) {
-            path[i] = s.m;
-            s = s.parent;
-        }
-        return path;
+    /**
+     * Searches with {@link HashDistributedSearch}, each state being the id
+     * {@code y * width + x} of its cell, as {@link Status} hashes only
+     * 16 bits of each coordinate
+     */
+    static int[] findPathParallel(Grid grid, int threads) throws InterruptedException {
+        return findPathParallel(grid, threads, null);
+    }
+
+    /**
+     * Like {@link #findPathParallel(Grid, int)}, reporting to listener
+     * if not null
+     */
+    static int[] findPathParallel(Grid grid, int threads, SearchListener listener) throws InterruptedException {
+        int width = grid.width, height = grid.height;
+        int destX = grid.destX, destY = grid.destY;
+        return HashDistributedSearch.findPath(new SearchProblem<Long>() {
+            @Override
+            public Long initial() {
+                return 0L;
+            }
+
+            @Override
+            public boolean isGoal(Long s) {
+                return s == (long) destY * width + destX;
+            }
+
+            @Override
+            public int estimate(Long s) {
+                int x = (int) (s % width), y = (int) (s / width);
+                return Math.max(Math.abs(destX - x), Math.abs(destY - y));
+            }
+
+            @Override
+            public int moves() {
+                return 8;
+            }
+
+            @Override
+            public Long move(Long s, int m) {
+                int x = (int) (s % width) + dx[m];
+                int y = (int) (s / width) + dy[m];
+                if (x == -1 || x == width || y == -1 || y == height || grid.isWall(x, y))
+                    return null;
+                return (long) y * width + x;
+            }
+        }, threads, SearchMetrics.forSearch("maze.parallel", listener));
+    }
+
+    private static int[] reconstructPath(PathStore pathStore, Status s) {
+        return pathStore.path(s.path);
     }
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package cn.yescallop.algorithm.maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of shortest paths in front of a maze solver
+ * <p>
+ * Paths are kept in least recently used order until the cells of all
+ * cached paths exceed a budget. A query missing the cache may still be
+ * answered from a cached path passing through both its endpoints, as any
+ * part of a shortest path, or its reverse, is itself a shortest path.
+ * <p>
+ * Entries belong to a map version. When cells in a rectangle change,
+ * {@link #invalidate} advances the version and keeps only the paths that
+ * avoid the rectangle and could not be shortened by going through it;
+ * a path being solved meanwhile is returned but not cached. All methods
+ * are thread-safe, and the solver is called without holding the lock.
+ *
+ * @author Scallop Ye
+ */
+class PathCache {
+
+    interface Solver {
+
+        /**
+         * Returns the moves of a shortest path, or null if there is none
+         */
+        int[] findPath(int startX, int startY, int destX, int destY);
+    }
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    /**
+     * Move of the opposite direction of each move
+     */
+    private static final int[] OPPOSITE = {2, 3, 0, 1, 5, 4, 7, 6};
+
+    private static class Entry {
+
+        final long key;
+
+        /**
+         * Null if there is no path
+         */
+        final int[] path;
+
+        /**
+         * Cell ids along the path, from start to destination
+         */
+        final int[] cells;
+
+        Entry(long key, int[] path, int[] cells) {
+            this.key = key;
+            this.path = path;
+            this.cells = cells;
+        }
+
+        int weight() {
+            return cells.length + 1;
+        }
+    }
+
+    private final int width, height;
+    private final long maxCells;
+    private final Solver solver;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Cached paths through each cell
+     */
+    private final Map<Integer, List<Entry>> through = new HashMap<>();
+
+    private long cells;
+    private long version;
+    private long hits, subPathHits, misses;
+
+    PathCache(int width, int height, long maxCells, Solver solver) {
+        if (maxCells < 1)
+            throw new IllegalArgumentException("Capacity: " + maxCells);
+        this.width = width;
+        this.height = height;
+        this.maxCells = maxCells;
+        this.solver = solver;
+    }
+
+    int[] findPath(int startX, int startY, int destX, int destY) {
+        int start = cell(startX, startY), dest = cell(destX, destY);
+        long key = (long) start << 32 | dest;
+        long v;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits++;
+                return e.path == null ? null : e.path.clone();
+            }
+            int[] sub = subPath(start, dest);
+            if (sub != null) {
+                subPathHits++;
+                return sub;
+            }
+            misses++;
+            v = version;
+        }
+        int[] path = solver.findPath(startX, startY, destX, destY);
+        synchronized (this) {
+            if (v == version && !entries.containsKey(key))
+                put(new Entry(key, path == null ? null : path.clone(), walk(start, path)));
+        }
+        return path;
+    }
+
+    /**
+     * Drops the paths that the change of any cell in the rectangle
+     * from (x0, y0) to (x1, y1) inclusive may have made invalid or no longer
+     * shortest, including every cached absence of a path
+     */
+    synchronized void invalidate(int x0, int y0, int x1, int y1) {
+        version++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (affected(e, x0, y0, x1, y1)) {
+                it.remove();
+                unlink(e);
+            }
+        }
+    }
+
+    synchronized long version() {
+        return version;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long subPathHits() {
+        return subPathHits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        through.clear();
+        cells = 0;
+        version++;
+    }
+
+    private int cell(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Cell: " + x + ", " + y);
+        return y * width + x;
+    }
+
+    private int[] walk(int start, int[] path) {
+        if (path == null)
+            return new int[0];
+        int[] res = new int[path.length + 1];
+        res[0] = start;
+        for (int i = 0; i < path.length; i++)
+            res[i + 1] = res[i] + dy[path[i]] * width + dx[path[i]];
+        return res;
+    }
+
+    /**
+     * Returns the part of a cached path from start to dest,
+     * or null if no cached path passes through both
+     */
+    private int[] subPath(int start, int dest) {
+        List<Entry> list = through.get(start);
+        if (list == null)
+            return null;
+        for (Entry e : list) {
+            int a = indexOf(e.cells, start), b = indexOf(e.cells, dest);
+            if (b == -1)
+                continue;
+            entries.get(e.key);
+            if (a <= b)
+                return Arrays.copyOfRange(e.path, a, b);
+            int[] res = new int[a - b];
+            for (int i = 0; i < res.length; i++)
+                res[i] = OPPOSITE[e.path[a - 1 - i]];
+            return res;
+        }
+        return null;
+    }
+
+    private static int indexOf(int[] cells, int cell) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == cell)
+                return i;
+        }
+        return -1;
+    }
+
+    private void put(Entry e) {
+        if (e.weight() > maxCells)
+            return;
+        entries.put(e.key, e);
+        for (int c : e.cells)
+            through.computeIfAbsent(c, k -> new ArrayList<>(2)).add(e);
+        cells += e.weight();
+        Iterator<Entry> it = entries.values().iterator();
+        while (cells > maxCells) {
+            Entry eldest = it.next();
+            it.remove();
+            unlink(eldest);
+        }
+    }
+
+    private void unlink(Entry e) {
+        for (int c : e.cells) {
+            List<Entry> list = through.get(c);
+            list.remove(e);
+            if (list.isEmpty())
+                through.remove(c);
+        }
+        cells -= e.weight();
+    }
+
+    /**
+     * Returns whether the path of e crosses the rectangle, or whether a
+     * path through it could be shorter, going by the Chebyshev distances
+     * of the endpoints to it
+     */
+    private boolean affected(Entry e, int x0, int y0, int x1, int y1) {
+        if (e.path == null)
+            return true;
+        int s = e.cells[0], t = e.cells[e.cells.length - 1];
+        if (distance(s, x0, y0, x1, y1) + distance(t, x0, y0, x1, y1) < e.path.length)
+            return true;
+        for (int c : e.cells) {
+            int x = c % width, y = c / width;
+            if (x >= x0 && x <= x1 && y >= y0 && y <= y1)
+                return true;
+        }
+        return false;
+    }
+
+    private int distance(int c, int x0, int y0, int x1, int y1) {
+        int x = c % width, y = c / width;
+        int ox = x < x0 ? x0 - x : Math.max(x - x1, 0);
+        int oy = y < y0 ? y0 - y : Math.max(y - y1, 0);
+        return Math.max(ox, oy);
+    }
+}
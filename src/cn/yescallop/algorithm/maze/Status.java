@@ -9,17 +9,18 @@ class Status {
     final int y;
     final int hash;
     int g, h, f;
-    int m;
 
-    Status parent;
+    /**
+     * Record of the path to this status in a {@link cn.yescallop.algorithm.util.PathStore}
+     */
+    int path;
 
-    Status(int x, int y, int g, int m, Status parent) {
+    Status(int x, int y, int g, int path) {
         this.x = x;
         this.y = y;
         this.hash = x << 16 | y;
         this.g = g;
-        this.m = m;
-        this.parent = parent;
+        this.path = path;
     }
 
     void estimateCost(int destX, int destY) {
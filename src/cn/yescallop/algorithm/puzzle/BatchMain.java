@@ -0,0 +1,159 @@
+package cn.yescallop.algorithm.puzzle;
+
+import cn.yescallop.algorithm.util.BatchSolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves many boards concurrently with IDA*
+ * <p>
+ * Usage: {@code BatchMain <file|-> [threads] [timeoutMillis]}. The input is
+ * either a {@link Corpus}, whose known lengths are checked, or text with
+ * one board per line, its cells separated by commas or spaces row by row.
+ * Each solved board is printed as its line number, length and path; a line
+ * that is not a solvable board is reported as a failed query.
+ * Pattern databases are loaded once per size and shared by all workers.
+ * {@link cn.yescallop.algorithm.maze.BatchMain} does the same for maze
+ * queries.
+ *
+ * @author Scallop Ye
+ */
+public class BatchMain {
+
+    private static class Query {
+
+        final int index;
+        final Status board;
+        final int expected;
+
+        /**
+         * Why the line is not a board, or null if it is
+         */
+        final IllegalArgumentException invalid;
+
+        Query(int index, Status board, int expected) {
+            this(index, board, expected, null);
+        }
+
+        Query(int index, IllegalArgumentException invalid) {
+            this(index, null, Corpus.UNKNOWN, invalid);
+        }
+
+        private Query(int index, Status board, int expected, IllegalArgumentException invalid) {
+            this.index = index;
+            this.board = board;
+            this.expected = expected;
+            this.invalid = invalid;
+        }
+    }
+
+    private static final PatternDatabase[] pdbs = new PatternDatabase[Status.MAX_SIZE + 1];
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = args.length > 0 ? args[0] : "-";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long timeout = args.length > 2 ? Long.parseLong(args[2]) : 10000;
+
+        BatchSolver<Query> solver = new BatchSolver<>(
+                (q, deadline) -> {
+                    if (q.invalid != null)
+                        throw q.invalid;
+                    return IDAStar.findPath(q.board, pdbs[q.board.size], deadline);
+                },
+                threads, threads * 4, timeout, TimeUnit.MILLISECONDS);
+        try {
+            if (input.endsWith(".bin")) {
+                Corpus corpus = Corpus.load(Paths.get(input));
+                loadPdb(corpus.size);
+                for (int i = 0; i < corpus.count(); i++)
+                    submit(solver, new Query(i, corpus.get(i), corpus.optimalLength(i)));
+            } else {
+                BufferedReader br = input.equals("-") ?
+                        new BufferedReader(new InputStreamReader(System.in)) :
+                        Files.newBufferedReader(Paths.get(input));
+                try (br) {
+                    String line;
+                    for (int i = 0; (line = br.readLine()) != null; i++) {
+                        line = line.trim();
+                        if (line.isEmpty())
+                            continue;
+                        Query query;
+                        try {
+                            query = new Query(i, parse(line), Corpus.UNKNOWN);
+                        } catch (IllegalArgumentException e) {
+                            query = new Query(i, e);
+                        }
+                        if (query.board != null)
+                            loadPdb(query.board.size);
+                        submit(solver, query);
+                    }
+                }
+            }
+        } finally {
+            solver.close();
+        }
+        System.out.println(solver.summary());
+    }
+
+    private static void submit(BatchSolver<Query> solver, Query query) throws InterruptedException {
+        solver.submit(query, r -> {
+            Query q = r.query;
+            if (r.timedOut) {
+                System.out.println(q.index + " timed out");
+            } else if (r.error != null) {
+                System.out.println(q.index + " failed: " + r.error);
+            } else if (r.path == null) {
+                System.out.println(q.index + " not found");
+            } else {
+                String s = q.index + " " + r.path.length + " " + Main.format(r.path);
+                if (q.expected != Corpus.UNKNOWN && q.expected != r.path.length)
+                    s += " (expected " + q.expected + ")";
+                System.out.println(s);
+            }
+        });
+    }
+
+    /**
+     * Returns the board of a line, or throws IllegalArgumentException if it
+     * is not a solvable board of a supported size
+     */
+    private static Status parse(String line) {
+        String[] cells = line.split("[,\\s]+");
+        int size = (int) Math.round(Math.sqrt(cells.length));
+        if (size * size != cells.length || size < 2 || size > Status.MAX_SIZE)
+            throw new IllegalArgumentException("Not a board: " + line);
+        int[] tiles = new int[cells.length];
+        boolean[] seen = new boolean[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            tiles[i] = Integer.parseInt(cells[i]);
+            if (tiles[i] < 0 || tiles[i] >= cells.length || seen[tiles[i]])
+                throw new IllegalArgumentException("Not a permutation: " + line);
+            seen[tiles[i]] = true;
+        }
+        if (!Status.isSolvable(size, tiles))
+            throw new IllegalArgumentException("Unsolvable board: " + line);
+        StringJoiner rows = new StringJoiner("\n");
+        for (int y = 0; y < size; y++) {
+            StringJoiner row = new StringJoiner(",");
+            for (int x = 0; x < size; x++)
+                row.add(cells[y * size + x]);
+            rows.add(row.toString());
+        }
+        return Status.of(size, rows.toString());
+    }
+
+    private static void loadPdb(int size) throws IOException {
+        if (pdbs[size] != null)
+            return;
+        Path file = Paths.get(PatternDatabase.defaultFile(size));
+        if (Files.exists(file))
+            pdbs[size] = PatternDatabase.load(file);
+    }
+}
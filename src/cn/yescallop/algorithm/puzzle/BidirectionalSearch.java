@@ -0,0 +1,145 @@
+package cn.yescallop.algorithm.puzzle;
+
+import cn.yescallop.algorithm.util.PathStore;
+import cn.yescallop.algorithm.util.SearchListener;
+import cn.yescallop.algorithm.util.SearchMetrics;
+
+import java.util.*;
+
+/**
+ * Bidirectional heuristic search meeting in the middle (MM)
+ * <p>
+ * One frontier grows from the start towards the goal and the other from
+ * the goal towards the start, each estimating the distance to the other
+ * end. Nodes are expanded in order of {@code max(g + h, 2g)}, which keeps
+ * either side from passing the middle of an optimal path. The best meeting
+ * cost U is optimal once no open node on either side has priority below U.
+ * A listener sees the expansions of both sides, with every node seen on
+ * either side counted as closed.
+ *
+ * @author Scallop Ye
+ */
+class BidirectionalSearch {
+
+    private final Side forward;
+    private final Side backward;
+    private int best = Integer.MAX_VALUE;
+    private Status meetForward, meetBackward;
+    private final SearchListener listener;
+
+    private BidirectionalSearch(Status initialStatus, SearchListener listener) {
+        Status start = initialStatus.copy();
+        Status goal = Status.init(initialStatus.size);
+        this.forward = new Side(start, Status.createIndex(goal));
+        this.backward = new Side(goal, Status.createIndex(start));
+        this.listener = listener;
+    }
+
+    static int[] findPath(Status initialStatus) {
+        return findPath(initialStatus, null);
+    }
+
+    /**
+     * Searches from both ends, reporting to listener if not null
+     */
+    static int[] findPath(Status initialStatus, SearchListener listener) {
+        listener = SearchMetrics.forSearch("puzzle.bidirectional", listener);
+        return new BidirectionalSearch(initialStatus, listener).search();
+    }
+
+    private int[] search() {
+        meet(forward.root, backward);
+        while (true) {
+            Status f = forward.peek();
+            Status b = backward.peek();
+            if (f == null || b == null)
+                break;
+            if (Math.min(f.f, b.f) >= best)
+                break;
+            if (f.f <= b.f)
+                expand(forward, backward);
+            else
+                expand(backward, forward);
+        }
+        if (listener != null)
+            listener.finished(meetForward == null ? -1 : best);
+        if (meetForward == null)
+            return null;
+
+        int[] path = new int[best];
+        int[] a = forward.pathStore.path(meetForward.path);
+        int[] b = backward.pathStore.path(meetBackward.path);
+        System.arraycopy(a, 0, path, 0, a.length);
+        for (int i = 0; i < b.length; i++)
+            path[a.length + i] = b[b.length - 1 - i] ^ 2;
+        return path;
+    }
+
+    private void expand(Side side, Side other) {
+        Status cur = side.openQueue.poll();
+        if (listener != null)
+            listener.expanded(cur.f, side.openQueue.size() + other.openQueue.size(),
+                    side.seen.size() + other.seen.size());
+        for (int m = 0; m < 4; m++) {
+            Status neighbor = cur.cloneWithMove(m, side.index);
+            if (neighbor == null)
+                continue;
+            if (listener != null)
+                listener.generated();
+            Status old = side.seen.get(neighbor);
+            if (old != null && old.g <= neighbor.g) {
+                if (listener != null)
+                    listener.duplicate();
+                continue;
+            }
+            if (old != null && listener != null)
+                listener.reopened();
+            neighbor.path = side.pathStore.add(cur.path, m);
+            side.add(neighbor);
+            meet(neighbor, other);
+        }
+    }
+
+    private void meet(Status s, Side other) {
+        Status o = other.seen.get(s);
+        if (o != null && s.g + o.g < best) {
+            best = s.g + o.g;
+            boolean isForward = other == backward;
+            meetForward = isForward ? s : o;
+            meetBackward = isForward ? o : s;
+        }
+    }
+
+    private static class Side {
+
+        final Status root;
+        final int[] index;
+        final Map<Status, Status> seen = new HashMap<>();
+        final PathStore pathStore = new PathStore();
+        final PriorityQueue<Status> openQueue = new PriorityQueue<>(
+                Comparator.<Status>comparingInt(s -> s.f).thenComparingInt(s -> s.g));
+
+        Side(Status root, int[] index) {
+            this.root = root;
+            this.index = index;
+            root.estimateCost(index);
+            add(root);
+        }
+
+        void add(Status s) {
+            s.f = Math.max(s.g + s.h, s.g << 1);
+            seen.put(s, s);
+            openQueue.add(s);
+        }
+
+        /**
+         * Returns the open node of least priority, dropping superseded ones
+         */
+        Status peek() {
+            Status s;
+            while ((s = openQueue.peek()) != null && seen.get(s) != s)
+                openQueue.poll();
+            return s;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package cn.yescallop.algorithm.puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A fixed set of boards with their optimal solution lengths, for
+ * repeatable benchmarks
+ * <p>
+ * The file holds a header of magic, size and count, followed by one
+ * fixed-size record per board: its two packed words and the optimal
+ * length, or -1 if unknown. The file is memory-mapped on load and
+ * records are decoded on access.
+ *
+ * @author Scallop Ye
+ */
+public class Corpus {
+
+    private static final int MAGIC = 0x50435331; // "PCS1"
+
+    private static final int HEADER = 12;
+
+    private static final int RECORD = 20;
+
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Side of the boards
+     */
+    final int size;
+    private final int count;
+    private final ByteBuffer buffer;
+
+    private Corpus(int size, int count, ByteBuffer buffer) {
+        this.size = size;
+        this.count = count;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Usage: {@code Corpus <size> <count> [file] [seed] [solve]}
+     * <p>
+     * Boards are solved with IDA*, using the pattern database of this size
+     * if one exists, unless solve is false.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = Integer.parseInt(args[0]);
+        int count = Integer.parseInt(args[1]);
+        Path file = Paths.get(args.length > 2 ? args[2] : defaultFile(size));
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        boolean solve = args.length <= 4 || Boolean.parseBoolean(args[4]);
+
+        PatternDatabase pdb = null;
+        Path pdbFile = Paths.get(PatternDatabase.defaultFile(size));
+        if (solve && Files.exists(pdbFile))
+            pdb = PatternDatabase.load(pdbFile);
+        Random random = new Random(seed);
+        Status[] boards = new Status[count];
+        int[] lengths = new int[count];
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            boards[i] = Status.random(size, random);
+            lengths[i] = UNKNOWN;
+            if (solve) {
+                int[] path = IDAStar.findPath(boards[i], pdb);
+                if (path != null)
+                    lengths[i] = path.length;
+            }
+        }
+        write(file, size, List.of(boards), lengths);
+        System.out.println("Wrote " + count + " boards to " + file
+                + " in " + (System.currentTimeMillis() - start) / 1000d + "s");
+    }
+
+    static String defaultFile(int size) {
+        return "corpus-" + size + ".bin";
+    }
+
+    public static Corpus load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (ch.size() < HEADER || buffer.getInt() != MAGIC)
+                throw new IOException("Not a corpus: " + file);
+            int size = buffer.getInt();
+            int count = buffer.getInt();
+            if (size < 2 || size > Status.MAX_SIZE)
+                throw new IOException("Unsupported size: " + size);
+            if (ch.size() != HEADER + (long) count * RECORD)
+                throw new IOException("Truncated corpus: " + file);
+            return new Corpus(size, count, buffer.slice());
+        }
+    }
+
+    /**
+     * Writes boards and their optimal lengths, {@link #UNKNOWN} if not known
+     */
+    static void write(Path file, int size, List<Status> boards, int[] lengths) throws IOException {
+        if (boards.size() != lengths.length)
+            throw new IllegalArgumentException("Boards and lengths differ in number");
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + boards.size() * RECORD);
+        buf.putInt(MAGIC).putInt(size).putInt(boards.size());
+        for (int i = 0; i < lengths.length; i++) {
+            Status s = boards.get(i);
+            if (s.size != size)
+                throw new IllegalArgumentException("Board of size " + s.size);
+            buf.putLong(s.lo).putLong(s.hi).putInt(lengths[i]);
+        }
+        buf.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining())
+                ch.write(buf);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the number of boards, unlike {@link #size}, their side
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns a fresh board for record i
+     */
+    Status get(int i) {
+        int off = checkIndex(i) * RECORD;
+        return Status.of(size, buffer.getLong(off), buffer.getLong(off + 8));
+    }
+
+    /**
+     * Returns the optimal length of record i, or {@link #UNKNOWN}
+     */
+    public int optimalLength(int i) {
+        return buffer.getInt(checkIndex(i) * RECORD + 16);
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+        return i;
+    }
+}
@@ -0,0 +1,386 @@
+package cn.yescallop.algorithm.puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Disk-backed breadth-first search over the whole puzzle state space
+ * <p>
+ * Each layer is a file of sorted boards, delta and varint encoded.
+ * Successors of a layer are buffered in memory, sorted and written as run
+ * files; a k-way merge of the runs then drops duplicates and every board
+ * found in the two previous layers, which are the only other places a
+ * successor can be in an undirected graph, giving the next layer.
+ * <p>
+ * Every open run holds a file and an I/O buffer, so at most a fan-in of
+ * runs is merged at once. A layer with more runs is first merged in
+ * passes through longer intermediate runs.
+ * <p>
+ * Finished layers and their sizes are recorded in a progress file, so an
+ * interrupted sweep resumes from the last finished layer.
+ * Boards must fit in one long, i.e. up to 4x4.
+ *
+ * @author Scallop Ye
+ */
+public class ExternalBFS {
+
+    private static final int IO_BUFFER = 1 << 20;
+
+    private static final String PROGRESS = "progress";
+
+    static final int DEFAULT_FAN_IN = 64;
+
+    private final int size;
+    private final int bits;
+    private final long mask;
+    private final Path dir;
+    private final long[] buffer;
+    private final int fanIn;
+
+    ExternalBFS(int size, Path dir, int bufferEntries, int fanIn) {
+        if (Status.words(size) != 1)
+            throw new IllegalArgumentException("Unsupported size: " + size);
+        if (bufferEntries < 1 || fanIn < 2)
+            throw new IllegalArgumentException();
+        this.size = size;
+        this.bits = Status.bits(size);
+        this.mask = (1L << bits) - 1;
+        this.dir = dir;
+        this.buffer = new long[bufferEntries];
+        this.fanIn = fanIn;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = Integer.parseInt(args[0]);
+        Path dir = Paths.get(args.length > 1 ? args[1] : "bfs-" + size);
+        int bufferEntries = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 24;
+        int fanIn = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FAN_IN;
+        Files.createDirectories(dir);
+        List<Long> counts = new ExternalBFS(size, dir, bufferEntries, fanIn).run();
+        long total = 0;
+        for (long c : counts)
+            total += c;
+        System.out.println("Total: " + total);
+    }
+
+    /**
+     * Sweeps the layers not yet finished, returning the size of every layer
+     */
+    List<Long> run() throws IOException {
+        List<Long> counts = readProgress();
+        for (int d = 0; d < counts.size(); d++)
+            System.out.println(d + " " + counts.get(d));
+        deleteRuns();
+        for (int d = 0; d < counts.size() - 2; d++)
+            Files.deleteIfExists(layer(d));
+        if (counts.isEmpty()) {
+            Path layer = layer(0);
+            try (Writer w = new Writer(tmp(layer))) {
+                w.write(Status.init(size).lo);
+            }
+            Files.move(tmp(layer), layer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            counts.add(1L);
+            writeProgress(counts);
+            System.out.println("0 1");
+        }
+
+        for (int d = counts.size() - 1; counts.get(d) != 0; d++) {
+            List<Path> runs = reduce(expand(layer(d), d), d);
+            Path next = layer(d + 1);
+            Path[] subtract = d == 0 ? new Path[]{layer(d)} : new Path[]{layer(d), layer(d - 1)};
+            long count = merge(runs, subtract, tmp(next));
+            Files.move(tmp(next), next, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            counts.add(count);
+            writeProgress(counts);
+            for (Path run : runs)
+                Files.delete(run);
+            if (d > 0)
+                Files.deleteIfExists(layer(d - 1));
+            System.out.println((d + 1) + " " + count);
+        }
+        return counts;
+    }
+
+    private Path layer(int d) {
+        return dir.resolve("layer-" + d + ".bin");
+    }
+
+    private static Path tmp(Path p) {
+        return p.resolveSibling(p.getFileName() + ".tmp");
+    }
+
+    private List<Long> readProgress() throws IOException {
+        List<Long> counts = new ArrayList<>();
+        Path p = dir.resolve(PROGRESS);
+        if (Files.exists(p)) {
+            for (String line : Files.readAllLines(p, StandardCharsets.US_ASCII)) {
+                if (!line.isEmpty())
+                    counts.add(Long.parseLong(line.substring(line.indexOf(' ') + 1)));
+            }
+        }
+        return counts;
+    }
+
+    private void writeProgress(List<Long> counts) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int d = 0; d < counts.size(); d++)
+            sb.append(d).append(' ').append(counts.get(d)).append('\n');
+        Path p = dir.resolve(PROGRESS);
+        Files.write(tmp(p), sb.toString().getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp(p), p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteRuns() throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.tmp")) {
+            for (Path p : ds)
+                Files.delete(p);
+        }
+    }
+
+    /**
+     * Writes the successors of a layer as sorted runs
+     */
+    private List<Path> expand(Path layer, int d) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        int n = 0;
+        try (Reader r = new Reader(layer)) {
+            while (r.hasNext()) {
+                long board = r.next();
+                int space = spaceOf(board);
+                int sx = space % size, sy = space / size;
+                for (int m = 0; m < 4; m++) {
+                    int x = sx + (m == 1 ? 1 : m == 3 ? -1 : 0);
+                    int y = sy + (m == 0 ? -1 : m == 2 ? 1 : 0);
+                    if (x == size || x == -1 || y == size || y == -1)
+                        continue;
+                    if (n == buffer.length) {
+                        runs.add(writeRun(n, d, runs.size()));
+                        n = 0;
+                    }
+                    buffer[n++] = slide(board, y * size + x, space);
+                }
+            }
+        }
+        if (n != 0 || runs.isEmpty())
+            runs.add(writeRun(n, d, runs.size()));
+        return runs;
+    }
+
+    private int spaceOf(long board) {
+        for (int i = 0; ; i++) {
+            if ((board >>> i * bits & mask) == 0)
+                return i;
+        }
+    }
+
+    private long slide(long board, int from, int to) {
+        long n = board >>> from * bits & mask;
+        return board & ~(mask << from * bits) | n << to * bits;
+    }
+
+    private Path writeRun(int n, int d, int i) throws IOException {
+        Arrays.sort(buffer, 0, n);
+        Path run = dir.resolve("run-" + d + "-" + i + ".tmp");
+        try (Writer w = new Writer(run)) {
+            for (int j = 0; j < n; j++) {
+                if (j == 0 || buffer[j] != buffer[j - 1])
+                    w.write(buffer[j]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges runs fanIn at a time into longer runs, deleting the merged
+     * ones, until at most fanIn are left
+     */
+    private List<Path> reduce(List<Path> runs, int d) throws IOException {
+        for (int pass = 0; runs.size() > fanIn; pass++) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                Path run = dir.resolve("run-" + d + "-" + pass + "-" + merged.size() + ".tmp");
+                merge(group, new Path[0], run);
+                for (Path p : group)
+                    Files.delete(p);
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        return runs;
+    }
+
+    /**
+     * Merges runs into out, skipping duplicates and boards in any of the
+     * subtracted layers
+     */
+    private long merge(List<Path> runs, Path[] subtractFrom, Path out) throws IOException {
+        PriorityQueue<Reader> heads = new PriorityQueue<>(Comparator.comparingLong(r -> r.head));
+        List<Reader> open = new ArrayList<>();
+        try (Writer w = new Writer(out)) {
+            for (Path run : runs) {
+                Reader r = new Reader(run);
+                open.add(r);
+                if (r.advance())
+                    heads.add(r);
+            }
+            Reader[] subtract = new Reader[subtractFrom.length];
+            for (int i = 0; i < subtract.length; i++) {
+                subtract[i] = new Reader(subtractFrom[i]);
+                open.add(subtract[i]);
+                subtract[i].advance();
+            }
+
+            boolean first = true;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                Reader r = heads.poll();
+                long v = r.head;
+                if (r.advance())
+                    heads.add(r);
+                if (!first && v == last)
+                    continue;
+                first = false;
+                last = v;
+                boolean seen = false;
+                for (Reader s : subtract) {
+                    while (s.valid && s.head < v)
+                        s.advance();
+                    if (s.valid && s.head == v)
+                        seen = true;
+                }
+                if (!seen)
+                    w.write(v);
+            }
+            return w.count;
+        } finally {
+            for (Reader r : open)
+                r.close();
+        }
+    }
+
+    /**
+     * Writes ascending longs as a count followed by varint deltas
+     */
+    private static class Writer implements AutoCloseable {
+
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER);
+        long prev = Long.MIN_VALUE;
+        long count;
+
+        Writer(Path p) throws IOException {
+            ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buf.putLong(0);
+        }
+
+        void write(long v) throws IOException {
+            if (buf.remaining() < 10)
+                flush();
+            long delta = v - prev;
+            prev = v;
+            while ((delta & ~0x7fL) != 0) {
+                buf.put((byte) (delta | 0x80));
+                delta >>>= 7;
+            }
+            buf.put((byte) delta);
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining())
+                ch.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            ByteBuffer head = ByteBuffer.allocate(8).putLong(0, count);
+            ch.write(head, 0);
+            ch.force(true);
+            ch.close();
+        }
+    }
+
+    private static class Reader implements AutoCloseable {
+
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER);
+        long remaining;
+        long prev = Long.MIN_VALUE;
+        long head;
+        boolean valid;
+        boolean eof;
+
+        Reader(Path p) throws IOException {
+            ch = FileChannel.open(p, StandardOpenOption.READ);
+            buf.limit(0);
+            fill();
+            remaining = buf.getLong();
+        }
+
+        private void fill() throws IOException {
+            if (eof || buf.remaining() >= 10)
+                return;
+            buf.compact();
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) == -1) {
+                    eof = true;
+                    break;
+                }
+            }
+            buf.flip();
+        }
+
+        boolean hasNext() {
+            return remaining != 0;
+        }
+
+        long next() throws IOException {
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            fill();
+            long delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf.get();
+                delta |= (long) (b & 0x7f) << shift;
+                if (b >= 0)
+                    break;
+            }
+            remaining--;
+            prev += delta;
+            return prev;
+        }
+
+        /**
+         * Moves head to the next value, returning false at the end
+         */
+        boolean advance() throws IOException {
+            valid = hasNext();
+            if (valid)
+                head = next();
+            return valid;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package cn.yescallop.algorithm.puzzle;
+
+import cn.yescallop.algorithm.util.PriorityHashQueue;
+import cn.yescallop.algorithm.util.SearchListener;
+import cn.yescallop.algorithm.util.SearchMetrics;
+
+import java.util.Comparator;
+
+/**
+ * Divide-and-conquer frontier A* for the sliding puzzle
+ * <p>
+ * Only the open list is kept. Each open node remembers which of its
+ * neighbours have already been expanded, so closed nodes can be dropped
+ * without ever being generated again, which holds on undirected graphs
+ * with a consistent heuristic such as plain Manhattan distance.
+ * <p>
+ * Instead of parent links, every node past the point where g first
+ * reaches h carries that midpoint state. Once the goal is reached the
+ * path is rebuilt by solving start to midpoint and midpoint to goal
+ * recursively. The number of open nodes is bounded by the memory budget.
+ * A listener sees the expansions of all these searches as one, with no
+ * closed list.
+ *
+ * @author Scallop Ye
+ */
+class FrontierSearch {
+
+    /**
+     * Rough heap bytes per open node: the node, its board and its share
+     * of the queue array and index map
+     */
+    static final int NODE_BYTES = 200;
+
+    private final long maxNodes;
+    private final SearchListener listener;
+
+    private FrontierSearch(long budgetBytes, SearchListener listener) {
+        this.maxNodes = budgetBytes / NODE_BYTES;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns an optimal path, or throws IllegalStateException if more open
+     * nodes than fit in the budget would be needed
+     */
+    static int[] findPath(Status initialStatus, long budgetBytes) {
+        return findPath(initialStatus, budgetBytes, null);
+    }
+
+    /**
+     * Like {@link #findPath(Status, long)}, reporting to listener if not null
+     */
+    static int[] findPath(Status initialStatus, long budgetBytes, SearchListener listener) {
+        listener = SearchMetrics.forSearch("puzzle.frontier", listener);
+        FrontierSearch s = new FrontierSearch(budgetBytes, listener);
+        Status start = initialStatus.copy();
+        Status goal = Status.init(initialStatus.size);
+        int[] path = s.solve(start, goal);
+        if (listener != null)
+            listener.finished(path == null ? -1 : path.length);
+        return path;
+    }
+
+    private int[] solve(Status start, Status goal) {
+        Node end = search(start, goal);
+        if (end == null)
+            return null;
+        if (end.g == 0)
+            return new int[0];
+        if (end.g == 1) {
+            for (int m = 0; m < 4; m++) {
+                Status s = start.copy();
+                if (s.move(m) && s.equals(goal))
+                    return new int[]{m};
+            }
+            throw new AssertionError();
+        }
+        int[] a = solve(start, end.mid);
+        int[] b = solve(end.mid, goal);
+        int[] path = new int[a.length + b.length];
+        System.arraycopy(a, 0, path, 0, a.length);
+        System.arraycopy(b, 0, path, a.length, b.length);
+        return path;
+    }
+
+    private Node search(Status start, Status goal) {
+        int[] index = Status.createIndex(goal);
+        PriorityHashQueue<Node> openQueue = new PriorityHashQueue<>(
+                Comparator.<Node>comparingInt(n -> n.f).thenComparingInt(n -> -n.g));
+        Node root = new Node(start.copy(), 0, manhattan(start, index));
+        openQueue.add(root);
+
+        while (openQueue.size() != 0) {
+            Node cur = openQueue.poll();
+            if (cur.state.equals(goal))
+                return cur;
+            if (listener != null)
+                listener.expanded(cur.f, openQueue.size(), 0);
+
+            for (int m = 0; m < 4; m++) {
+                if ((cur.used >>> m & 1) != 0)
+                    continue;
+                Status s = cur.state.copy();
+                int toX = s.spaceX, toY = s.spaceY;
+                if (!s.move(m))
+                    continue;
+                if (listener != null)
+                    listener.generated();
+                int n = s.get(toX, toY);
+                int h = cur.h + Math.abs(index[n << 1] - toX) - Math.abs(index[n << 1] - s.spaceX)
+                        + Math.abs(index[n << 1 | 1] - toY) - Math.abs(index[n << 1 | 1] - s.spaceY);
+                Node neighbor = new Node(s, cur.g + 1, h);
+                int i = openQueue.indexOf(neighbor);
+                if (i != -1) {
+                    Node other = openQueue.get(i);
+                    other.used |= 1 << (m ^ 2);
+                    if (neighbor.g < other.g) {
+                        if (listener != null)
+                            listener.reopened();
+                        other.g = neighbor.g;
+                        other.f = other.g + other.h;
+                        other.mid = midpoint(cur, other);
+                        openQueue.siftUp(i, other);
+                    } else if (listener != null) {
+                        listener.duplicate();
+                    }
+                } else {
+                    neighbor.used = (byte) (1 << (m ^ 2));
+                    neighbor.mid = midpoint(cur, neighbor);
+                    openQueue.add(neighbor);
+                    if (openQueue.size() > maxNodes)
+                        throw new IllegalStateException("Memory budget exceeded");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Status midpoint(Node parent, Node child) {
+        if (parent.mid != null)
+            return parent.mid;
+        return child.g >= child.h ? child.state : null;
+    }
+
+    private static int manhattan(Status s, int[] index) {
+        int h = 0;
+        for (int y = 0; y < s.size; y++) {
+            for (int x = 0; x < s.size; x++) {
+                int n = s.get(x, y);
+                if (n != 0)
+                    h += Math.abs(index[n << 1] - x) + Math.abs(index[n << 1 | 1] - y);
+            }
+        }
+        return h;
+    }
+
+    private static class Node {
+
+        final Status state;
+        final int h;
+        int g, f;
+
+        /**
+         * Bit m is set once the neighbour reached by move m has been expanded
+         */
+        byte used;
+
+        Status mid;
+
+        Node(Status state, int g, int h) {
+            this.state = state;
+            this.g = g;
+            this.h = h;
+            this.f = g + h;
+        }
+
+        @Override
+        public int hashCode() {
+            return state.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return state.equals(((Node) obj).state);
+        }
+    }
+}
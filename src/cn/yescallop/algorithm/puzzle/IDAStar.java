@@ -0,0 +1,168 @@
+package cn.yescallop.algorithm.puzzle;
+
+import cn.yescallop.algorithm.util.SearchListener;
+import cn.yescallop.algorithm.util.SearchMetrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Iterative deepening A* searching in place on a single board
+ * <p>
+ * The board is moved and moved back instead of cloned, the heuristic is
+ * updated by the delta of the one tile that slides, and the move undoing
+ * the previous one is never tried. Memory is O(depth).
+ * <p>
+ * A search may be given a deadline, checked every few thousand expansions
+ * together with the thread's interrupt status. A listener sees the depth
+ * of the node expanded as the size of the open list, and no closed list.
+ *
+ * @author Scallop Ye
+ */
+class IDAStar {
+
+    private static final int FOUND = -1;
+
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final Status board;
+    private final int[] index;
+    private final PatternDatabase pdb;
+    private final boolean timed;
+    private final long deadline;
+    private final SearchListener listener;
+    private final int[] cellOf;
+    private final int[] groupH;
+    private int[] path;
+    private int h;
+    private int depth;
+    private long searched;
+
+    private IDAStar(Status initialStatus, PatternDatabase pdb, boolean timed, long deadline,
+                    SearchListener listener) {
+        int size = initialStatus.size;
+        if (pdb != null && pdb.size != size)
+            throw new IllegalArgumentException("Pattern database size mismatch");
+        this.board = initialStatus.copy();
+        this.index = Status.goalIndex(size);
+        this.pdb = pdb;
+        this.timed = timed;
+        this.deadline = deadline;
+        this.listener = listener;
+        if (pdb != null) {
+            this.cellOf = PatternDatabase.cellsOf(board);
+            this.groupH = new int[pdb.groups.length];
+            for (int i = 0; i < groupH.length; i++) {
+                groupH[i] = pdb.lookup(i, cellOf);
+                h += groupH[i];
+            }
+        } else {
+            this.cellOf = null;
+            this.groupH = null;
+            board.estimateCost(index);
+            h = board.h;
+        }
+    }
+
+    static int[] findPath(Status initialStatus) {
+        return findPath(initialStatus, null);
+    }
+
+    static int[] findPath(Status initialStatus, PatternDatabase pdb) {
+        return findPath(initialStatus, pdb, (SearchListener) null);
+    }
+
+    /**
+     * Searches with the pattern database if not null,
+     * reporting to listener if not null
+     */
+    static int[] findPath(Status initialStatus, PatternDatabase pdb, SearchListener listener) {
+        listener = SearchMetrics.forSearch("puzzle.ida", listener);
+        try {
+            return new IDAStar(initialStatus, pdb, false, 0, listener).run();
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Like {@link #findPath(Status, PatternDatabase)}, but gives up once
+     * {@link System#nanoTime()} passes deadline or the thread is interrupted
+     */
+    static int[] findPath(Status initialStatus, PatternDatabase pdb, long deadline) throws TimeoutException {
+        SearchListener listener = SearchMetrics.forSearch("puzzle.ida", null);
+        return new IDAStar(initialStatus, pdb, true, deadline, listener).run();
+    }
+
+    private int[] run() throws TimeoutException {
+        int bound = h;
+        while (true) {
+            path = new int[bound];
+            int t = search(0, bound, -1);
+            if (t == FOUND) {
+                if (listener != null)
+                    listener.finished(depth);
+                return Arrays.copyOf(path, depth);
+            }
+            if (t == Integer.MAX_VALUE) {
+                if (listener != null)
+                    listener.finished(-1);
+                return null;
+            }
+            bound = t;
+        }
+    }
+
+    private int search(int g, int bound, int prev) throws TimeoutException {
+        int f = g + h;
+        if (f > bound)
+            return f;
+        if (h == 0) {
+            depth = g;
+            return FOUND;
+        }
+        if (++searched % CHECK_INTERVAL == 0 && timed
+                && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()))
+            throw new TimeoutException("Searched status: " + searched);
+        if (listener != null)
+            listener.expanded(f, g, 0);
+        int min = Integer.MAX_VALUE;
+        for (int m = 0; m < 4; m++) {
+            if (m == (prev ^ 2))
+                continue;
+            int delta, n = 0, from = 0, group = -1, old = 0;
+            if (pdb != null) {
+                int to = board.spaceY * board.size + board.spaceX;
+                if (!board.move(m))
+                    continue;
+                from = board.spaceY * board.size + board.spaceX;
+                n = board.get(to);
+                group = pdb.groupOf[n];
+                old = groupH[group];
+                cellOf[n] = to;
+                groupH[group] = pdb.lookup(group, cellOf);
+                delta = groupH[group] - old;
+            } else {
+                delta = board.move(m, index);
+                if (delta == Status.NO_MOVE)
+                    continue;
+            }
+            if (listener != null)
+                listener.generated();
+            h += delta;
+            path[g] = m;
+            int t = search(g + 1, bound, m);
+            if (t == FOUND)
+                return t;
+            board.move(m ^ 2);
+            h -= delta;
+            if (pdb != null) {
+                cellOf[n] = from;
+                groupH[group] = old;
+            }
+            if (t < min)
+                min = t;
+        }
+        return min;
+    }
+}
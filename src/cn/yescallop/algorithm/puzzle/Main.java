@@ -1,8 +1,18 @@
 package cn.yescallop.algorithm.puzzle;
 
-import cn.yescallop.algorithm.util.PriorityHashQueue;
+import cn.yescallop.algorithm.util.HashDistributedSearch;
+import cn.yescallop.algorithm.util.IntIndexedQueue;
+import cn.yescallop.algorithm.util.LongHashSet;
+import cn.yescallop.algorithm.util.LongIntHashMap;
+import cn.yescallop.algorithm.util.PathStore;
+import cn.yescallop.algorithm.util.SearchListener;
+import cn.yescallop.algorithm.util.SearchMetrics;
+import cn.yescallop.algorithm.util.SearchProblem;
 
-import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -11,13 +21,38 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class Main {
 
-    public static void main(String[] args) {
-        Status status = Status.generate(5, 10000000, ThreadLocalRandom.current());
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Status status = Status.random(5, ThreadLocalRandom.current());
         System.out.println(status);
         System.out.println();
 
+        String queue = "bucket";
+        for (String arg : args) {
+            if (IntIndexedQueue.strategies().contains(arg))
+                queue = arg;
+        }
+
         long start = System.currentTimeMillis();
-        int[] path = findPath(status);
+        int[] path;
+        SearchMetrics metrics = new SearchMetrics(args.length > 0 && args[0].equals("metrics"));
+        if (args.length > 0 && args[0].equals("ida")) {
+            Path pdbFile = Paths.get(PatternDatabase.defaultFile(status.size));
+            PatternDatabase pdb = Files.exists(pdbFile) ? PatternDatabase.load(pdbFile) : null;
+            path = IDAStar.findPath(status, pdb, metrics);
+        } else if (args.length > 0 && args[0].equals("bidirectional")) {
+            path = BidirectionalSearch.findPath(status, metrics);
+        } else if (args.length > 0 && args[0].equals("frontier")) {
+            path = FrontierSearch.findPath(status, Runtime.getRuntime().maxMemory() / 2, metrics);
+        } else if (args.length > 0 && args[0].equals("parallel")) {
+            path = findPathParallel(status, Runtime.getRuntime().availableProcessors(), metrics);
+        } else {
+            path = findPath(status, IntIndexedQueue.create(queue, 1024), metrics);
+        }
+        if (metrics != null) {
+            System.out.println("Searched status: " + metrics.expansions());
+            if (metrics.timed())
+                System.out.println(metrics);
+        }
         System.out.println("Used time: " + (System.currentTimeMillis() - start) / 1000d + "s");
         if (path == null) {
             System.out.println("Path not found!");
@@ -25,6 +60,14 @@ public class Main {
         }
 
         System.out.println("Path: ");
+        System.out.println(format(path));
+    }
+
+    /**
+     * Returns the path as letters naming the direction each tile slides
+     */
+    static String format(int[] path) {
+        StringBuilder sb = new StringBuilder(path.length);
         for (int m : path) {
             String s = null;
             switch (m) {
@@ -41,70 +84,147 @@ public class Main {
                     s = "R";
                     break;
             }
-            System.out.print(s);
+            sb.append(s);
         }
-        System.out.println();
+        return sb.toString();
+    }
+
+    static int[] findPath(Status initialStatus, IntIndexedQueue openQueue) {
+        return findPath(initialStatus, openQueue, null);
     }
 
-    private static int[] findPath(Status initialStatus) {
-        PriorityHashQueue<Status> openQueue = new PriorityHashQueue<>(Comparator.comparingInt(s -> s.f));
-        Set<Status> closedSet = new HashSet<>();
+    /**
+     * Searches with A*, reporting to listener if not null
+     */
+    static int[] findPath(Status initialStatus, IntIndexedQueue openQueue, SearchListener listener) {
+        listener = SearchMetrics.forSearch("puzzle.astar", listener);
+        boolean timed = listener != null && listener.timed();
+        List<Status> nodes = new ArrayList<>();
+        int words = Status.words(initialStatus.size);
+        LongIntHashMap openIndex = new LongIntHashMap(words);
+        LongHashSet closedSet = new LongHashSet(words);
+        PathStore pathStore = new PathStore();
 
-        Point[] index = createIndex(initialStatus.size);
+        int[] index = Status.goalIndex(initialStatus.size);
         initialStatus.estimateCost(index);
 
-        openQueue.add(initialStatus);
+        initialStatus.id = nodes.size();
+        nodes.add(initialStatus);
+        openIndex.put(initialStatus.keyLo(), initialStatus.keyHi(), initialStatus.id);
+        openQueue.offer(initialStatus.id, initialStatus.f);
 
         while (openQueue.size() != 0) {
-            Status cur = openQueue.poll();
+            long t = timed ? System.nanoTime() : 0;
+            Status cur = nodes.set(openQueue.poll(), null);
+            if (timed)
+                listener.queueTime(System.nanoTime() - t);
+            long keyLo = cur.keyLo();
+            int keyHi = cur.keyHi();
+            openIndex.remove(keyLo, keyHi);
             if (cur.h == 0) {
-                System.out.println("Searched status: " + closedSet.size());
-                return reconstructPath(cur);
+                int[] path = reconstructPath(pathStore, cur);
+                if (listener != null)
+                    listener.finished(path.length);
+                return path;
             }
-            closedSet.add(cur);
+            if (listener != null)
+                listener.expanded(cur.f, openIndex.size(), closedSet.size());
+            closedSet.add(keyLo, keyHi);
 
             for (int m = 0; m < 4; m++) {
-                Status neighbor = cur.cloneWithMove(m);
-                if (neighbor == null || closedSet.contains(neighbor))
+                if (timed)
+                    t = System.nanoTime();
+                Status neighbor = cur.cloneWithMove(m, index);
+                if (timed)
+                    listener.generateTime(System.nanoTime() - t);
+                if (neighbor == null)
                     continue;
-                int i = openQueue.indexOf(neighbor);
-                if (i != -1) {
-                    Status other = openQueue.get(i);
+                if (listener != null)
+                    listener.generated();
+                keyLo = neighbor.keyLo();
+                keyHi = neighbor.keyHi();
+                if (closedSet.contains(keyLo, keyHi)) {
+                    if (listener != null)
+                        listener.duplicate();
+                    continue;
+                }
+                int otherId = openIndex.get(keyLo, keyHi);
+                if (otherId != -1) {
+                    Status other = nodes.get(otherId);
                     if (neighbor.g < other.g) {
-                        other.parent = cur;
+                        if (listener != null)
+                            listener.reopened();
+                        pathStore.set(other.path, cur.path, m);
                         other.g = neighbor.g;
-                        other.m = m;
-                        other.f = other.g + other.h;
-                        openQueue.siftUp(i, other);
+                        other.f = other.g + Status.WEIGHT * other.h;
+                        if (timed)
+                            t = System.nanoTime();
+                        openQueue.decreaseKey(other.id, other.f);
+                        if (timed)
+                            listener.queueTime(System.nanoTime() - t);
+                    } else if (listener != null) {
+                        listener.duplicate();
                     }
                 } else {
-                    neighbor.estimateCost(index);
-                    openQueue.add(neighbor);
+                    neighbor.path = pathStore.add(cur.path, m);
+                    neighbor.id = nodes.size();
+                    nodes.add(neighbor);
+                    openIndex.put(keyLo, keyHi, neighbor.id);
+                    if (timed)
+                        t = System.nanoTime();
+                    openQueue.offer(neighbor.id, neighbor.f);
+                    if (timed)
+                        listener.queueTime(System.nanoTime() - t);
                 }
             }
         }
+        if (listener != null)
+            listener.finished(-1);
         return null;
     }
 
-    private static int[] reconstructPath(Status s) {
-        int[] path = new int[s.g];
-        for (int i = s.g - 1; i >= 0; i--) {
-            path[i] = s.m;
-            s = s.parent;
-        }
-        return path;
+    static int[] findPathParallel(Status initialStatus, int threads) throws InterruptedException {
+        return findPathParallel(initialStatus, threads, null);
     }
 
-    private static Point[] createIndex(int size) {
-        Point[] res = new Point[size * size];
-        res[0] = new Point(size - 1, size - 1);
-        int i = 1;
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                if (i == res.length) break;
-                res[i++] = new Point(x, y);
+    /**
+     * Searches with {@link HashDistributedSearch}, reporting to listener
+     * if not null
+     */
+    static int[] findPathParallel(Status initialStatus, int threads, SearchListener listener)
+            throws InterruptedException {
+        int[] index = Status.goalIndex(initialStatus.size);
+        return HashDistributedSearch.findPath(new SearchProblem<Status>() {
+            @Override
+            public Status initial() {
+                Status s = initialStatus.copy();
+                s.estimateCost(index);
+                return s;
             }
-        }
-        return res;
+
+            @Override
+            public boolean isGoal(Status s) {
+                return s.h == 0;
+            }
+
+            @Override
+            public int estimate(Status s) {
+                return s.h;
+            }
+
+            @Override
+            public int moves() {
+                return 4;
+            }
+
+            @Override
+            public Status move(Status s, int m) {
+                return s.cloneWithMove(m, index);
+            }
+        }, threads, SearchMetrics.forSearch("puzzle.parallel", listener));
+    }
+
+    private static int[] reconstructPath(PathStore pathStore, Status s) {
+        return pathStore.path(s.path);
     }
 }
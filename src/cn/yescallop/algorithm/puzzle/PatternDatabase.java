@@ -0,0 +1,320 @@
+package cn.yescallop.algorithm.puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Disjoint additive pattern databases
+ * <p>
+ * The tiles are split into groups, and for each group a table maps the
+ * cells of its tiles to the number of moves of those tiles needed to put
+ * them home, found by a retrograde 0-1 BFS from {@link Status#init(int)}
+ * in which moving the space past other tiles is free. Since every move
+ * moves a tile of exactly one group, the sum over groups is admissible.
+ * <p>
+ * Tables are indexed by the rank of the k-permutation of cells and stored
+ * one byte per entry. The file is memory-mapped on load.
+ *
+ * @author Scallop Ye
+ */
+public class PatternDatabase {
+
+    private static final int MAGIC = 0x50444231; // "PDB1"
+
+    private static final int[][][] DEFAULT_GROUPS = {
+            null, null,
+            {{1, 2, 3}},
+            {{1, 2, 3, 4}, {5, 6, 7, 8}},
+            {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}},
+            {{1, 2, 3, 6, 7}, {4, 5, 8, 9, 10}, {11, 12, 16, 17, 21}, {13, 14, 15, 18, 19}, {20, 22, 23, 24}}
+    };
+
+    private static final int[] dx = {0, 1, 0, -1};
+    private static final int[] dy = {-1, 0, 1, 0};
+
+    final int size;
+    final int[][] groups;
+
+    /**
+     * Group index of each tile
+     */
+    final int[] groupOf;
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+
+    private PatternDatabase(int size, int[][] groups, ByteBuffer buffer, int[] offsets) {
+        this.size = size;
+        this.groups = groups;
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.groupOf = new int[size * size];
+        Arrays.fill(groupOf, -1);
+        for (int i = 0; i < groups.length; i++) {
+            for (int t : groups[i])
+                groupOf[t] = i;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = Integer.parseInt(args[0]);
+        Path file = Paths.get(args.length > 1 ? args[1] : defaultFile(size));
+        long start = System.currentTimeMillis();
+        build(size).write(file);
+        System.out.println("Built " + file + " in " + (System.currentTimeMillis() - start) / 1000d + "s");
+    }
+
+    static String defaultFile(int size) {
+        return "pdb-" + size + ".bin";
+    }
+
+    static int[][] defaultGroups(int size) {
+        if (size < 2 || size > Status.MAX_SIZE)
+            throw new IllegalArgumentException("Unsupported size: " + size);
+        return DEFAULT_GROUPS[size];
+    }
+
+    public static PatternDatabase build(int size) {
+        return build(size, defaultGroups(size));
+    }
+
+    public static PatternDatabase build(int size, int[][] groups) {
+        int cells = size * size;
+        int[] offsets = new int[groups.length + 1];
+        for (int i = 0; i < groups.length; i++) {
+            offsets[i + 1] = offsets[i] + permutations(cells, groups[i].length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(offsets[groups.length]);
+        for (int i = 0; i < groups.length; i++) {
+            byte[] table = buildTable(size, groups[i]);
+            buffer.put(offsets[i], table, 0, table.length);
+        }
+        return new PatternDatabase(size, groups, buffer, offsets);
+    }
+
+    public static PatternDatabase load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a pattern database: " + file);
+            int size = buffer.getInt();
+            int[][] groups = new int[buffer.getInt()][];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = new int[buffer.getInt()];
+                for (int j = 0; j < groups[i].length; j++)
+                    groups[i][j] = buffer.getInt();
+            }
+            int header = buffer.position();
+            int[] offsets = new int[groups.length + 1];
+            for (int i = 0; i < groups.length; i++) {
+                offsets[i + 1] = offsets[i] + permutations(size * size, groups[i].length);
+            }
+            if (ch.size() != header + offsets[groups.length])
+                throw new IOException("Truncated pattern database: " + file);
+            return new PatternDatabase(size, groups, buffer.slice(), offsets);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        int header = 12;
+        for (int[] group : groups)
+            header += 4 + 4 * group.length;
+        ByteBuffer head = ByteBuffer.allocate(header);
+        head.putInt(MAGIC).putInt(size).putInt(groups.length);
+        for (int[] group : groups) {
+            head.putInt(group.length);
+            for (int t : group)
+                head.putInt(t);
+        }
+        head.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (head.hasRemaining())
+                ch.write(head);
+            ByteBuffer body = buffer.duplicate();
+            body.clear();
+            while (body.hasRemaining())
+                ch.write(body);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the table entry of a group whose tiles sit at the given cells
+     */
+    int lookup(int group, int[] cellOf) {
+        int[] tiles = groups[group];
+        int cells = size * size;
+        int rank = 0;
+        long used = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int c = cellOf[tiles[i]];
+            rank = rank * (cells - i) + c - Long.bitCount(used & ((1L << c) - 1));
+            used |= 1L << c;
+        }
+        return buffer.get(offsets[group] + rank) & 0xff;
+    }
+
+    /**
+     * Returns the sum of all groups, {@code cellOf[t]} being the cell of tile t
+     */
+    int estimate(int[] cellOf) {
+        int h = 0;
+        for (int i = 0; i < groups.length; i++)
+            h += lookup(i, cellOf);
+        return h;
+    }
+
+    int estimate(Status s) {
+        return estimate(cellsOf(s));
+    }
+
+    static int[] cellsOf(Status s) {
+        int cells = s.size * s.size;
+        int[] cellOf = new int[cells];
+        for (int i = 0; i < cells; i++)
+            cellOf[s.get(i)] = i;
+        return cellOf;
+    }
+
+    private static int permutations(int n, int k) {
+        long res = 1;
+        for (int i = 0; i < k; i++)
+            res *= n - i;
+        if (res > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Group too large: " + k);
+        return (int) res;
+    }
+
+    private static int rank(int[] pos, int cells) {
+        int rank = 0;
+        long used = 0;
+        for (int i = 0; i < pos.length; i++) {
+            int c = pos[i];
+            rank = rank * (cells - i) + c - Long.bitCount(used & ((1L << c) - 1));
+            used |= 1L << c;
+        }
+        return rank;
+    }
+
+    private static void unrank(int rank, int[] pos, int cells) {
+        int k = pos.length;
+        for (int i = k - 1; i >= 0; i--) {
+            int base = cells - i;
+            pos[i] = rank % base;
+            rank /= base;
+        }
+        // pos[i] is now the index of the cell among those still unused
+        long used = 0;
+        for (int i = 0; i < k; i++) {
+            int c = 0;
+            for (int j = pos[i]; ; c++) {
+                if ((used & (1L << c)) == 0 && j-- == 0)
+                    break;
+            }
+            pos[i] = c;
+            used |= 1L << c;
+        }
+    }
+
+    private static byte[] buildTable(int size, int[] tiles) {
+        int cells = size * size;
+        int k = tiles.length;
+        int entries = permutations(cells, k);
+        if ((long) entries * cells > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Group too large: " + k);
+        byte[] dist = new byte[entries * cells];
+        Arrays.fill(dist, (byte) -1);
+
+        int[] pos = new int[k];
+        for (int i = 0; i < k; i++)
+            pos[i] = tiles[i] - 1;
+        int goal = rank(pos, cells) * cells + cells - 1;
+        dist[goal] = 0;
+        IntList cur = new IntList();
+        IntList next = new IntList();
+        cur.add(goal);
+
+        for (int d = 0; !cur.isEmpty(); d++) {
+            for (int i = 0; i < cur.size; i++) {
+                int state = cur.a[i];
+                if ((dist[state] & 0xff) != d)
+                    continue;
+                int rank = state / cells;
+                int blank = state % cells;
+                unrank(rank, pos, cells);
+                int bx = blank % size;
+                int by = blank / size;
+                for (int m = 0; m < 4; m++) {
+                    int x = bx + dx[m];
+                    int y = by + dy[m];
+                    if (x == size || x == -1 || y == size || y == -1)
+                        continue;
+                    int c = y * size + x;
+                    int j = indexOf(pos, c);
+                    if (j == -1) {
+                        int t = rank * cells + c;
+                        if ((dist[t] & 0xff) > d) {
+                            dist[t] = (byte) d;
+                            cur.add(t);
+                        }
+                    } else {
+                        pos[j] = blank;
+                        int t = rank(pos, cells) * cells + c;
+                        pos[j] = c;
+                        if ((dist[t] & 0xff) > d + 1) {
+                            dist[t] = (byte) (d + 1);
+                            next.add(t);
+                        }
+                    }
+                }
+            }
+            IntList tmp = cur;
+            cur = next;
+            next = tmp;
+            next.size = 0;
+        }
+
+        byte[] table = new byte[entries];
+        for (int r = 0; r < entries; r++) {
+            int min = 0xff;
+            for (int b = 0; b < cells; b++)
+                min = Math.min(min, dist[r * cells + b] & 0xff);
+            table[r] = (byte) min;
+        }
+        return table;
+    }
+
+    private static int indexOf(int[] a, int v) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == v)
+                return i;
+        }
+        return -1;
+    }
+
+    private static class IntList {
+
+        int[] a = new int[1024];
+        int size;
+
+        void add(int v) {
+            if (size == a.length)
+                a = Arrays.copyOf(a, a.length + (a.length >> 1));
+            a[size++] = v;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -1,65 +1,207 @@
 package cn.yescallop.algorithm.puzzle;
 
-import java.awt.*;
+import cn.yescallop.algorithm.util.PathStore;
+
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.StringJoiner;
 
 /**
+ * A puzzle board packed into two longs, cell i taking
+ * {@code bits(size)} bits from bit {@code i * bits(size)}
+ *
  * @author Scallop Ye
  */
 class Status {
 
+    static final int MAX_SIZE = 5;
+
+    /**
+     * Weight of h in f, trading optimality for speed in A*
+     */
+    static final int WEIGHT = 5;
+
+    /**
+     * Returned by {@link #move(int, int[])} when the move is impossible
+     */
+    static final int NO_MOVE = Integer.MIN_VALUE;
+
+    /**
+     * Number of Lehmer code digits in {@link #keyHi()}
+     */
+    private static final int KEY_HI_DIGITS = 6;
+
     private static int[] dx = {0, 1, 0, -1};
     private static int[] dy = {-1, 0, 1, 0};
-    final int[][] matrix;
+
+    /**
+     * Zobrist keys indexed by size, then by {@code cell * size * size + tile}
+     */
+    private static final long[][] ZOBRIST = new long[MAX_SIZE + 1][];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eed);
+        for (int size = 2; size <= MAX_SIZE; size++) {
+            long[] z = new long[size * size * size * size];
+            for (int i = 0; i < z.length; i++)
+                z[i] = random.nextLong();
+            ZOBRIST[size] = z;
+        }
+    }
+
+    /**
+     * Index of {@link #init(int)} for each size, shared by all searches
+     * and never modified
+     */
+    private static final int[][] GOAL_INDEX = new int[MAX_SIZE + 1][];
+
+    static {
+        for (int size = 2; size <= MAX_SIZE; size++)
+            GOAL_INDEX[size] = createIndex(init(size));
+    }
+
     final int size;
-    int hash;
+    long lo, hi;
+    long zobrist;
     int spaceX, spaceY;
     int g, h, f;
-    int m;
-    Status parent;
+    int id;
+
+    /**
+     * Record of the path to this status in a {@link cn.yescallop.algorithm.util.PathStore}
+     */
+    int path;
 
-    Status(int[][] matrix, int hash, int spaceX, int spaceY, int g, int m, Status parent) {
-        this.matrix = matrix;
-        this.size = matrix.length;
-        this.hash = hash;
+    Status(int size, long lo, long hi, long zobrist, int spaceX, int spaceY, int g, int path) {
+        this.size = size;
+        this.lo = lo;
+        this.hi = hi;
+        this.zobrist = zobrist;
         this.spaceX = spaceX;
         this.spaceY = spaceY;
         this.g = g;
-        this.m = m;
-        this.parent = parent;
+        this.path = path;
+    }
+
+    private Status(int size) {
+        if (size < 2 || size > MAX_SIZE)
+            throw new IllegalArgumentException("Unsupported size: " + size);
+        this.size = size;
+        this.path = PathStore.ROOT;
     }
 
     public static Status of(int size, String s) {
-        int[][] matrix = new int[size][size];
-        int spaceX = -1, spaceY = -1;
+        Status p = new Status(size);
+        p.spaceX = -1;
         String[] a = s.split("\\n");
         for (int y = 0; y < a.length; y++) {
             String[] ap = a[y].split(",");
             for (int x = 0; x < ap.length; x++) {
                 int n = Integer.parseInt(ap[x]);
-                matrix[y][x] = n;
+                p.set(y * size + x, n);
                 if (n == 0) {
-                    spaceX = x;
-                    spaceY = y;
+                    p.spaceX = x;
+                    p.spaceY = y;
                 }
             }
         }
-        if (spaceX == -1)
+        if (p.spaceX == -1)
             throw new IllegalArgumentException("No space");
-        return new Status(matrix, deepHashCode(matrix), spaceX, spaceY, 0, -1, null);
+        p.zobrist = p.computeZobrist();
+        return p;
     }
 
     public static Status init(int size) {
-        int[][] matrix = new int[size][size];
-        int tmp = 1;
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                matrix[y][x] = tmp++;
+        Status p = new Status(size);
+        int cells = size * size;
+        for (int i = 0; i < cells - 1; i++) {
+            p.set(i, i + 1);
+        }
+        p.spaceX = size - 1;
+        p.spaceY = size - 1;
+        p.zobrist = p.computeZobrist();
+        return p;
+    }
+
+    /**
+     * Returns a board drawn uniformly from the solvable ones
+     * <p>
+     * A random permutation is solvable iff its parity equals that of the
+     * space's distance from its goal cell. Otherwise two tiles at fixed
+     * cells are swapped, which pairs up boards with the space in the
+     * same cell one to one and so keeps the draw uniform.
+     */
+    public static Status random(int size, Random random) {
+        int cells = size * size;
+        int[] tiles = new int[cells];
+        for (int i = 0; i < cells; i++)
+            tiles[i] = i;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = t;
+        }
+        if (!isSolvable(size, tiles)) {
+            int a = tiles[0] == 0 ? 1 : 0;
+            int b = tiles[cells - 1] == 0 ? cells - 2 : cells - 1;
+            int t = tiles[a];
+            tiles[a] = tiles[b];
+            tiles[b] = t;
+        }
+        Status p = new Status(size);
+        for (int i = 0; i < cells; i++) {
+            p.set(i, tiles[i]);
+            if (tiles[i] == 0) {
+                p.spaceX = i % size;
+                p.spaceY = i / size;
             }
         }
-        matrix[size - 1][size - 1] = 0;
-        return new Status(matrix, 0, size - 1, size - 1, 0, -1, null);
+        p.zobrist = p.computeZobrist();
+        return p;
+    }
+
+    /**
+     * Returns whether the board given by the tile of each cell can reach
+     * {@link #init(int)}
+     */
+    static boolean isSolvable(int size, int[] tiles) {
+        int cells = size * size;
+        int inversions = 0;
+        int space = 0;
+        for (int i = 0; i < cells; i++) {
+            int a = tiles[i] == 0 ? cells : tiles[i];
+            if (a == cells)
+                space = i;
+            for (int j = i + 1; j < cells; j++) {
+                int b = tiles[j] == 0 ? cells : tiles[j];
+                if (a > b)
+                    inversions++;
+            }
+        }
+        int distance = size - 1 - space % size + size - 1 - space / size;
+        return ((inversions ^ distance) & 1) == 0;
+    }
+
+    /**
+     * Returns the board packed in lo and hi
+     */
+    static Status of(int size, long lo, long hi) {
+        Status p = new Status(size);
+        p.lo = lo;
+        p.hi = hi;
+        p.spaceX = -1;
+        for (int i = 0; i < size * size; i++) {
+            if (p.get(i) == 0) {
+                p.spaceX = i % size;
+                p.spaceY = i / size;
+                break;
+            }
+        }
+        if (p.spaceX == -1)
+            throw new IllegalArgumentException("No space");
+        p.zobrist = p.computeZobrist();
+        return p;
     }
 
     public static Status generate(int size, int steps, Random random) {
@@ -67,27 +209,130 @@ class Status {
         for (int i = 0; i < steps; i++) {
             if (!p.moveRandomly(random)) i--;
         }
-        p.hash = deepHashCode(p.matrix);
         return p;
     }
 
-    static int deepHashCode(int[][] a) {
-        int result = 1;
-        for (int[] element : a) {
-            int elementHash = 1;
-            for (int e : element)
-                elementHash = elementHash * 31 + e;
-            result = result * 31 + elementHash;
+    static int bits(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size * size - 1);
+    }
+
+    /**
+     * Returns the number of longs a board of this size needs
+     */
+    static int words(int size) {
+        return bits(size) * size * size > 64 ? 2 : 1;
+    }
+
+    /**
+     * Returns the long of the key of this board in a
+     * {@link cn.yescallop.algorithm.util.LongHashSet}: lo if the board fits
+     * in a long, else the Lehmer code digits of cells
+     * {@link #KEY_HI_DIGITS} on, each in as few bits as its range needs,
+     * which for 5x5 make exactly 64 bits
+     */
+    long keyLo() {
+        if (words(size) == 1)
+            return lo;
+        int cells = size * size;
+        int bits = bits(size), mask = (1 << bits) - 1;
+        long l = lo, h = hi;
+        int used = 0;
+        long res = 0;
+        for (int i = 0; i < cells - 1; i++) {
+            int n = (int) l & mask;
+            l = l >>> bits | h << (64 - bits);
+            h >>>= bits;
+            if (i >= KEY_HI_DIGITS)
+                res = res << (32 - Integer.numberOfLeadingZeros(cells - 1 - i))
+                        | n - Integer.bitCount(used & ((1 << n) - 1));
+            used |= 1 << n;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the int of the key of this board: 0 if the board fits in a
+     * long, else the Lehmer code digits of the first cells, 5 bits each
+     */
+    int keyHi() {
+        if (words(size) == 1)
+            return 0;
+        int bits = bits(size), mask = (1 << bits) - 1;
+        long l = lo;
+        int used = 0;
+        int res = 0;
+        for (int i = 0; i < KEY_HI_DIGITS; i++, l >>>= bits) {
+            int n = (int) l & mask;
+            res = res << 5 | n - Integer.bitCount(used & ((1 << n) - 1));
+            used |= 1 << n;
+        }
+        return res;
+    }
+
+    int get(int i) {
+        int bits = bits(size);
+        int off = i * bits;
+        long mask = (1L << bits) - 1;
+        if (off + bits <= 64)
+            return (int) (lo >>> off & mask);
+        if (off >= 64)
+            return (int) (hi >>> (off - 64) & mask);
+        return (int) ((lo >>> off | hi << (64 - off)) & mask);
+    }
+
+    int get(int x, int y) {
+        return get(y * size + x);
+    }
+
+    private void set(int i, int n) {
+        int bits = bits(size);
+        int off = i * bits;
+        long mask = (1L << bits) - 1;
+        long v = n;
+        if (off + bits <= 64) {
+            lo = lo & ~(mask << off) | v << off;
+        } else if (off >= 64) {
+            hi = hi & ~(mask << (off - 64)) | v << (off - 64);
+        } else {
+            lo = lo & ~(mask << off) | v << off;
+            hi = hi & ~(mask >>> (64 - off)) | v >>> (64 - off);
+        }
+    }
+
+    private long computeZobrist() {
+        long[] z = ZOBRIST[size];
+        int cells = size * size;
+        long res = 0;
+        for (int i = 0; i < cells; i++) {
+            res ^= z[i * cells + get(i)];
         }
-        return result;
+        return res;
+    }
+
+    /**
+     * Moves tile n from cell {@code from} into the space at cell {@code to}
+     */
+    private void slide(int from, int to, int n) {
+        long[] z = ZOBRIST[size];
+        int cells = size * size;
+        set(to, n);
+        set(from, 0);
+        zobrist ^= z[from * cells + n] ^ z[to * cells + n] ^ z[from * cells] ^ z[to * cells];
+    }
+
+    /**
+     * Returns a board equal to this one, with g reset and no path
+     */
+    Status copy() {
+        return new Status(size, lo, hi, zobrist, spaceX, spaceY, 0, PathStore.ROOT);
     }
 
     public boolean move(int m) {
         int x = spaceX + dx[m];
         int y = spaceY + dy[m];
         if (x != size && x != -1 && y != size && y != -1) {
-            matrix[spaceY][spaceX] = matrix[y][x];
-            matrix[y][x] = 0;
+            int from = y * size + x;
+            slide(from, spaceY * size + spaceX, get(from));
             spaceX = x;
             spaceY = y;
             return true;
@@ -99,56 +344,132 @@ class Status {
         return this.move(random.nextInt(4));
     }
 
-    void estimateCost(Point[] index) {
+    /**
+     * Returns the goal coordinates of each tile in target,
+     * x at {@code 2 * n} and y at {@code 2 * n + 1}
+     */
+    static int[] createIndex(Status target) {
+        int size = target.size;
+        int[] index = new int[size * size * 2];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int n = target.get(x, y);
+                index[n << 1] = x;
+                index[n << 1 | 1] = y;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the shared index of the goal board, which must not be modified
+     */
+    static int[] goalIndex(int size) {
+        if (size < 2 || size > MAX_SIZE)
+            throw new IllegalArgumentException("Unsupported size: " + size);
+        return GOAL_INDEX[size];
+    }
+
+    /**
+     * Sets h to Manhattan distance plus linear conflict, and f accordingly
+     */
+    void estimateCost(int[] index) {
+        int h = 0;
         for (int y = 0; y < size; y++) {
             for (int x = 0; x < size; x++) {
-                int n = matrix[y][x];
-                if (n == 0)
-                    continue;
-                Point p = index[n];
-                this.h += Math.abs(p.x - x) + Math.abs(p.y - y);
+                int n = get(x, y);
+                if (n != 0)
+                    h += Math.abs(index[n << 1] - x) + Math.abs(index[n << 1 | 1] - y);
             }
         }
-        this.h *= 5;
-        this.f = this.g + this.h;
+        for (int i = 0; i < size; i++) {
+            h += lineConflict(index, i, true) + lineConflict(index, i, false);
+        }
+        this.h = h;
+        this.f = this.g + WEIGHT * h;
+    }
+
+    /**
+     * Returns twice the number of tiles that must leave a row or column
+     * to let the others, all in their goal line, reach their goal order
+     */
+    private int lineConflict(int[] index, int line, boolean row) {
+        int k = 0, best = 0;
+        int values = 0, lengths = 0;
+        for (int i = 0; i < size; i++) {
+            int n = row ? get(i, line) : get(line, i);
+            if (n == 0 || index[row ? n << 1 | 1 : n << 1] != line)
+                continue;
+            int v = index[row ? n << 1 : n << 1 | 1];
+            // longest increasing subsequence ending here, 3 bits per entry
+            int len = 1;
+            for (int j = 0; j < k; j++) {
+                if ((values >>> 3 * j & 7) < v)
+                    len = Math.max(len, (lengths >>> 3 * j & 7) + 1);
+            }
+            values |= v << 3 * k;
+            lengths |= len << 3 * k;
+            k++;
+            best = Math.max(best, len);
+        }
+        return (k - best) << 1;
+    }
+
+    /**
+     * Returns the linear conflict of the two lines a tile crosses
+     * when it slides between (x1, y1) and (x2, y2)
+     */
+    private int lineConflict(int[] index, int x1, int y1, int x2, int y2) {
+        return x1 == x2 ?
+                lineConflict(index, y1, true) + lineConflict(index, y2, true) :
+                lineConflict(index, x1, false) + lineConflict(index, x2, false);
     }
 
-    Status cloneWithMove(int m) {
+    /**
+     * Moves like {@link #move(int)} and returns the change of h,
+     * or {@link #NO_MOVE} if the move is impossible
+     * <p>
+     * Only the sliding tile's distance and the two lines it leaves and
+     * enters change, since its order within the other line is kept.
+     */
+    int move(int m, int[] index) {
+        int x = spaceX + dx[m];
+        int y = spaceY + dy[m];
+        if (x == size || x == -1 || y == size || y == -1)
+            return NO_MOVE;
+        int toX = spaceX, toY = spaceY;
+        int from = y * size + x;
+        int n = get(from);
+        int before = lineConflict(index, x, y, toX, toY);
+        slide(from, toY * size + toX, n);
+        spaceX = x;
+        spaceY = y;
+        int gx = index[n << 1], gy = index[n << 1 | 1];
+        return Math.abs(gx - toX) - Math.abs(gx - x) + Math.abs(gy - toY) - Math.abs(gy - y)
+                + lineConflict(index, x, y, toX, toY) - before;
+    }
+
+    Status cloneWithMove(int m, int[] index) {
         int x = spaceX + dx[m];
         int y = spaceY + dy[m];
         if (x != size && x != -1 && y != size && y != -1) {
-            int n = matrix[y][x];
-            matrix[spaceY][spaceX] = n;
-            matrix[y][x] = 0;
-            int[][] matrix = new int[size][size];
-            for (int i = 0; i < size; i++) {
-                System.arraycopy(this.matrix[i], 0, matrix[i], 0, size);
-            }
-            this.matrix[spaceY][spaceX] = 0;
-            this.matrix[y][x] = n;
-            return new Status(matrix, deepHashCode(matrix), x, y, g + 1, m, this);
+            Status s = new Status(size, lo, hi, zobrist, spaceX, spaceY, g + 1, PathStore.ROOT);
+            s.h = h + s.move(m, index);
+            s.f = s.g + WEIGHT * s.h;
+            return s;
         }
         return null;
     }
 
     @Override
     public int hashCode() {
-        return hash;
+        return (int) (zobrist ^ (zobrist >>> 32));
     }
 
     @Override
     public boolean equals(Object obj) {
-        return equals(size, this.matrix, ((Status) obj).matrix);
-    }
-
-    private static boolean equals(int size, int[][] m1, int[][] m2) {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (m1[i][j] != m2[i][j])
-                    return false;
-            }
-        }
-        return true;
+        Status s = (Status) obj;
+        return this.lo == s.lo && this.hi == s.hi;
     }
 
     @Override
@@ -157,7 +478,7 @@ class Status {
         for (int y = 0; y < size; y++) {
             StringJoiner b = new StringJoiner(",");
             for (int x = 0; x < size; x++) {
-                b.add(Integer.toString(matrix[y][x]));
+                b.add(Integer.toString(get(x, y)));
             }
             a.add(b.toString());
         }
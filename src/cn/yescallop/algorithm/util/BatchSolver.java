@@ -0,0 +1,177 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs independent path queries concurrently
+ * <p>
+ * Queries are submitted one by one and run on a fixed pool of workers.
+ * At most {@code maxPending} may be queued or running at once; further
+ * submissions block, so a fast reader cannot outrun the workers. Each
+ * query gets a deadline counted from its submission, and the latency of
+ * every finished query is kept for the summary.
+ * <p>
+ * Solvers must not modify shared state such as heuristic tables.
+ *
+ * @author Scallop Ye
+ */
+public class BatchSolver<T> implements AutoCloseable {
+
+    public interface Solver<T> {
+
+        /**
+         * Returns the moves of a path, or null if there is none, giving up
+         * once {@link System#nanoTime()} passes deadline
+         */
+        int[] solve(T query, long deadline) throws TimeoutException;
+    }
+
+    public static final class Result<T> {
+
+        public final T query;
+
+        /**
+         * The path found, or null if there is none or the query failed
+         */
+        public final int[] path;
+
+        public final long latencyNanos;
+
+        public final boolean timedOut;
+
+        public final Throwable error;
+
+        private Result(T query, int[] path, long latencyNanos, boolean timedOut, Throwable error) {
+            this.query = query;
+            this.path = path;
+            this.latencyNanos = latencyNanos;
+            this.timedOut = timedOut;
+            this.error = error;
+        }
+    }
+
+    private final Solver<T> solver;
+    private final ForkJoinPool pool;
+    private final Semaphore pending;
+    private final long timeoutNanos;
+
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private long[] latencies = new long[1024];
+    private int count = 0;
+
+    private final long start = System.nanoTime();
+    private long end;
+
+    public BatchSolver(Solver<T> solver, int threads, int maxPending, long timeout, TimeUnit unit) {
+        if (threads < 1 || maxPending < 1 || timeout <= 0)
+            throw new IllegalArgumentException();
+        this.solver = solver;
+        this.pool = new ForkJoinPool(threads);
+        this.pending = new Semaphore(maxPending);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Queues a query, waiting while too many are pending, and passes its
+     * result to consumer on the worker thread
+     */
+    public void submit(T query, Consumer<? super Result<T>> consumer) throws InterruptedException {
+        pending.acquire();
+        long submitted = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                try {
+                    consumer.accept(run(query, submitted));
+                } finally {
+                    pending.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    private Result<T> run(T query, long submitted) {
+        int[] path = null;
+        boolean timeout = false;
+        Throwable error = null;
+        try {
+            path = solver.solve(query, submitted + timeoutNanos);
+            (path != null ? solved : notFound).increment();
+        } catch (TimeoutException e) {
+            timeout = true;
+            timedOut.increment();
+        } catch (RuntimeException | Error e) {
+            // an error such as running out of memory fails only this query
+            error = e;
+            failed.increment();
+        }
+        long latency = System.nanoTime() - submitted;
+        record(latency);
+        return new Result<>(query, path, latency, timeout, error);
+    }
+
+    private synchronized void record(long latency) {
+        if (count == latencies.length)
+            latencies = Arrays.copyOf(latencies, count << 1);
+        latencies[count++] = latency;
+    }
+
+    /**
+     * Waits for all submitted queries and stops the workers
+     * <p>
+     * If interrupted while waiting, interrupts the queries still running,
+     * drops the queued ones and returns with the interrupt status set.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // queries are still running
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (end == 0)
+                end = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the latency below which the given fraction of finished
+     * queries fall, in nanoseconds
+     */
+    public synchronized long percentile(double p) {
+        if (count == 0)
+            return 0;
+        long[] a = Arrays.copyOf(latencies, count);
+        Arrays.sort(a);
+        return a[(int) Math.min(count - 1, Math.max(0, Math.ceil(p * count) - 1))];
+    }
+
+    public synchronized String summary() {
+        long elapsed = (end != 0 ? end : System.nanoTime()) - start;
+        return "Solved: " + solved.sum()
+                + ", Not found: " + notFound.sum()
+                + ", Timed out: " + timedOut.sum()
+                + ", Failed: " + failed.sum()
+                + "\nThroughput: " + String.format("%.1f", count * 1e9 / elapsed) + "/s"
+                + ", p50: " + String.format("%.3f", percentile(0.5) / 1e6) + "ms"
+                + ", p99: " + String.format("%.3f", percentile(0.99) / 1e6) + "ms";
+    }
+}
@@ -0,0 +1,276 @@
+package cn.yescallop.algorithm.util;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash distributed A* (HDA*)
+ * <p>
+ * Every state is owned by the worker its hash maps to. Each worker keeps
+ * its own open list and closed table, expands its best node and sends
+ * each successor to the owner's lock-free inbox. A goal only becomes the
+ * incumbent; workers go on until no node anywhere has f below its cost.
+ * <p>
+ * Termination uses one counter holding the number of busy workers plus
+ * the number of successors sent but not yet queued by their owner.
+ * A sender counts a message before posting it and an idle worker counts
+ * itself busy again before consuming it, so the counter can only reach 0
+ * once all workers are idle and all inboxes are drained, and then stays 0.
+ * With an admissible estimate the returned path is optimal.
+ * <p>
+ * A listener is not shared by the workers. Each counts into its own
+ * {@link SearchMetrics}, and these are replayed to the listener once all
+ * have stopped, every expansion with the sums of the workers' peak open
+ * and closed sizes.
+ *
+ * @author Scallop Ye
+ */
+public class HashDistributedSearch<S> {
+
+    private static final int SPINS = 64;
+
+    private static final long PARK_NANOS = 50_000;
+
+    private static final class Node<S> {
+
+        final S state;
+        final Node<S> parent;
+        final int g, f, m;
+
+        Node(S state, Node<S> parent, int g, int f, int m) {
+            this.state = state;
+            this.parent = parent;
+            this.g = g;
+            this.f = f;
+            this.m = m;
+        }
+    }
+
+    private final SearchProblem<S> problem;
+    private final SearchListener listener;
+    private final Worker[] workers;
+    private final AtomicInteger busy;
+    private final AtomicReference<Node<S>> incumbent = new AtomicReference<>();
+    private volatile int bound = Integer.MAX_VALUE;
+
+    @SuppressWarnings("unchecked")
+    private HashDistributedSearch(SearchProblem<S> problem, int threads, SearchListener listener) {
+        if (threads < 1)
+            throw new IllegalArgumentException();
+        this.problem = problem;
+        this.listener = listener;
+        this.workers = (Worker[]) Array.newInstance(Worker.class, threads);
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker();
+        this.busy = new AtomicInteger(threads);
+    }
+
+    /**
+     * Returns the moves of an optimal path, or null if there is none
+     */
+    public static <S> int[] findPath(SearchProblem<S> problem, int threads) throws InterruptedException {
+        return findPath(problem, threads, null);
+    }
+
+    /**
+     * Like {@link #findPath(SearchProblem, int)}, reporting to listener
+     * if not null once the search ends
+     */
+    public static <S> int[] findPath(SearchProblem<S> problem, int threads, SearchListener listener)
+            throws InterruptedException {
+        return new HashDistributedSearch<>(problem, threads, listener).run();
+    }
+
+    private int[] run() throws InterruptedException {
+        S initial = problem.initial();
+        busy.incrementAndGet();
+        owner(initial).inbox.offer(new Node<>(initial, null, 0, problem.estimate(initial), -1));
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(workers[i], "hda-" + i);
+            threads[i].start();
+        }
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException e) {
+            for (Thread t : threads)
+                t.interrupt();
+            throw e;
+        }
+
+        Node<S> goal = incumbent.get();
+        if (listener != null)
+            report(goal == null ? -1 : goal.g);
+        if (goal == null)
+            return null;
+        int[] path = new int[goal.g];
+        for (int i = goal.g - 1; i >= 0; i--) {
+            path[i] = goal.m;
+            goal = goal.parent;
+        }
+        return path;
+    }
+
+    /**
+     * Replays the counts of all workers to the listener
+     */
+    private void report(int pathLength) {
+        int open = 0, closed = 0;
+        for (Worker w : workers) {
+            open += w.metrics.peakOpen();
+            closed += w.metrics.peakClosed();
+        }
+        long generateNanos = 0, queueNanos = 0;
+        for (Worker w : workers) {
+            SearchMetrics m = w.metrics;
+            long[] byF = m.expansionsByF();
+            for (int f = 0; f < byF.length; f++) {
+                for (long i = 0; i < byF[f]; i++)
+                    listener.expanded(f, open, closed);
+            }
+            for (long i = 0; i < m.generatedNodes(); i++)
+                listener.generated();
+            for (long i = 0; i < m.duplicates(); i++)
+                listener.duplicate();
+            for (long i = 0; i < m.reopenings(); i++)
+                listener.reopened();
+            generateNanos += m.generateNanos();
+            queueNanos += m.queueNanos();
+        }
+        if (listener.timed()) {
+            listener.generateTime(generateNanos);
+            listener.queueTime(queueNanos);
+        }
+        listener.finished(pathLength);
+    }
+
+    private Worker owner(S s) {
+        int h = s.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return workers[(h & 0x7fffffff) % workers.length];
+    }
+
+    private void offerIncumbent(Node<S> goal) {
+        while (true) {
+            Node<S> cur = incumbent.get();
+            if (cur != null && cur.g <= goal.g)
+                return;
+            if (incumbent.compareAndSet(cur, goal)) {
+                bound = goal.g;
+                return;
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        final MpscQueue<Node<S>> inbox = new MpscQueue<>();
+        final PriorityQueue<Node<S>> openQueue = new PriorityQueue<>(
+                Comparator.<Node<S>>comparingInt(n -> n.f).thenComparingInt(n -> -n.g));
+        final Map<S, Node<S>> best = new HashMap<>();
+        final SearchMetrics metrics = listener == null ? null : new SearchMetrics(listener.timed());
+        final boolean timed = metrics != null && metrics.timed();
+        boolean active = true;
+
+        @Override
+        public void run() {
+            int idleRounds = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                Node<S> msg = inbox.poll();
+                if (msg != null) {
+                    if (!active) {
+                        busy.incrementAndGet();
+                        active = true;
+                    }
+                    do {
+                        receive(msg);
+                        busy.decrementAndGet();
+                    } while ((msg = inbox.poll()) != null);
+                }
+
+                Node<S> cur = openQueue.peek();
+                if (cur != null && cur.f < bound) {
+                    idleRounds = 0;
+                    long t = 0;
+                    if (timed)
+                        t = System.nanoTime();
+                    openQueue.poll();
+                    if (timed)
+                        metrics.queueTime(System.nanoTime() - t);
+                    if (best.get(cur.state) == cur)
+                        expand(cur);
+                    continue;
+                }
+
+                if (active) {
+                    active = false;
+                    busy.decrementAndGet();
+                }
+                if (busy.get() == 0)
+                    return;
+                if (++idleRounds < SPINS)
+                    Thread.onSpinWait();
+                else
+                    LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+
+        private void receive(Node<S> n) {
+            Node<S> old = best.get(n.state);
+            if (old != null && old.g <= n.g) {
+                if (metrics != null)
+                    metrics.duplicate();
+                return;
+            }
+            if (old != null && metrics != null)
+                metrics.reopened();
+            best.put(n.state, n);
+            long t = 0;
+            if (timed)
+                t = System.nanoTime();
+            openQueue.add(n);
+            if (timed)
+                metrics.queueTime(System.nanoTime() - t);
+        }
+
+        private void expand(Node<S> cur) {
+            if (metrics != null)
+                metrics.expanded(cur.f, openQueue.size(), best.size());
+            if (problem.isGoal(cur.state)) {
+                offerIncumbent(cur);
+                return;
+            }
+            int g = cur.g + 1;
+            for (int m = 0, moves = problem.moves(); m < moves; m++) {
+                long t = 0;
+                if (timed)
+                    t = System.nanoTime();
+                S s = problem.move(cur.state, m);
+                int f = s == null ? -1 : g + problem.estimate(s);
+                if (timed)
+                    metrics.generateTime(System.nanoTime() - t);
+                if (s == null)
+                    continue;
+                if (metrics != null)
+                    metrics.generated();
+                if (f >= bound)
+                    continue;
+                Node<S> n = new Node<>(s, cur, g, f, m);
+                Worker w = owner(s);
+                if (w == this) {
+                    receive(n);
+                } else {
+                    busy.incrementAndGet();
+                    w.inbox.offer(n);
+                }
+            }
+        }
+    }
+}
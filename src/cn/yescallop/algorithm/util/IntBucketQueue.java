@@ -0,0 +1,205 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A bucket queue of dense int ids with small non-negative int priorities,
+ * a drop-in replacement for {@link IntPriorityQueue}
+ * <p>
+ * Each priority owns a doubly linked list of ids, so offer and decrease-key
+ * are O(1) and poll is O(1) amortized as long as priorities rarely fall below
+ * the last polled one, which holds for A* with a consistent heuristic.
+ * Ids of equal priority are polled LIFO or FIFO.
+ *
+ * @author Scallop Ye
+ */
+public class IntBucketQueue implements IntIndexedQueue {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    private static final int ABSENT = -2;
+
+    private final boolean lifo;
+
+    private int[] head;
+
+    private int[] tail;
+
+    private int[] next;
+
+    private int[] prev;
+
+    private int[] priority;
+
+    /**
+     * Lowest bucket that may be non-empty
+     */
+    private int cursor = 0;
+
+    /**
+     * Highest bucket ever used
+     */
+    private int top = -1;
+
+    private int size = 0;
+
+    public IntBucketQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, true);
+    }
+
+    public IntBucketQueue(boolean lifo) {
+        this(DEFAULT_INITIAL_CAPACITY, lifo);
+    }
+
+    public IntBucketQueue(int initialCapacity, boolean lifo) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.lifo = lifo;
+        this.head = new int[DEFAULT_INITIAL_CAPACITY];
+        this.tail = new int[DEFAULT_INITIAL_CAPACITY];
+        Arrays.fill(head, -1);
+        Arrays.fill(tail, -1);
+        this.next = new int[initialCapacity];
+        this.prev = new int[initialCapacity];
+        this.priority = new int[initialCapacity];
+        Arrays.fill(prev, ABSENT);
+    }
+
+    private void ensureId(int id) {
+        int oldCapacity = prev.length;
+        if (id < oldCapacity)
+            return;
+        int newCapacity = Math.max(id + 1, oldCapacity + (oldCapacity >> 1));
+        next = Arrays.copyOf(next, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        priority = Arrays.copyOf(priority, newCapacity);
+        Arrays.fill(prev, oldCapacity, newCapacity, ABSENT);
+    }
+
+    private void ensureBucket(int p) {
+        int oldCapacity = head.length;
+        if (p < oldCapacity)
+            return;
+        int newCapacity = Math.max(p + 1, oldCapacity << 1);
+        head = Arrays.copyOf(head, newCapacity);
+        tail = Arrays.copyOf(tail, newCapacity);
+        Arrays.fill(head, oldCapacity, newCapacity, -1);
+        Arrays.fill(tail, oldCapacity, newCapacity, -1);
+    }
+
+    @Override
+    public void offer(int id, int p) {
+        if (id < 0 || p < 0)
+            throw new IllegalArgumentException();
+        ensureId(id);
+        if (prev[id] != ABSENT)
+            throw new IllegalStateException("Already queued: " + id);
+        ensureBucket(p);
+        link(id, p);
+        size++;
+    }
+
+    @Override
+    public int peek() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        while (head[cursor] == -1)
+            cursor++;
+        return head[cursor];
+    }
+
+    @Override
+    public int poll() {
+        int id = peek();
+        unlink(id);
+        size--;
+        return id;
+    }
+
+    @Override
+    public void decreaseKey(int id, int p) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        if (p < 0 || p > priority[id])
+            throw new IllegalArgumentException();
+        unlink(id);
+        link(id, p);
+    }
+
+    /**
+     * Returns the bucket holding id, or -1 if it is not queued
+     */
+    @Override
+    public int indexOf(int id) {
+        return contains(id) ? priority[id] : -1;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id >= 0 && id < prev.length && prev[id] != ABSENT;
+    }
+
+    @Override
+    public int priorityOf(int id) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        return priority[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int p = cursor; p <= top; p++) {
+            for (int id = head[p]; id != -1; id = next[id])
+                prev[id] = ABSENT;
+            head[p] = tail[p] = -1;
+        }
+        cursor = 0;
+        top = -1;
+        size = 0;
+    }
+
+    private void link(int id, int p) {
+        priority[id] = p;
+        if (head[p] == -1) {
+            head[p] = tail[p] = id;
+            prev[id] = next[id] = -1;
+        } else if (lifo) {
+            int h = head[p];
+            prev[h] = id;
+            next[id] = h;
+            prev[id] = -1;
+            head[p] = id;
+        } else {
+            int t = tail[p];
+            next[t] = id;
+            prev[id] = t;
+            next[id] = -1;
+            tail[p] = id;
+        }
+        if (p < cursor || size == 0)
+            cursor = p;
+        if (p > top)
+            top = p;
+    }
+
+    private void unlink(int id) {
+        int p = priority[id];
+        int pr = prev[id];
+        int nx = next[id];
+        if (pr == -1)
+            head[p] = nx;
+        else
+            next[pr] = nx;
+        if (nx == -1)
+            tail[p] = pr;
+        else
+            prev[nx] = pr;
+        prev[id] = ABSENT;
+    }
+}
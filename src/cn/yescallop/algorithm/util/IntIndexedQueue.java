@@ -0,0 +1,72 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.List;
+
+/**
+ * A min-priority queue of dense int ids with int priorities
+ * <p>
+ * Searches take any implementation; {@link #create} picks one by the name
+ * given on the command line or as a benchmark parameter.
+ *
+ * @author Scallop Ye
+ */
+public interface IntIndexedQueue {
+
+    /**
+     * Returns the names of the strategies {@link #create} knows
+     */
+    static List<String> strategies() {
+        return List.of("binary", "4ary", "8ary", "pairing", "bucket");
+    }
+
+    /**
+     * Returns an empty queue of the named strategy: a binary, 4-ary or
+     * 8-ary heap, a pairing heap or a LIFO bucket queue
+     */
+    static IntIndexedQueue create(String strategy, int initialCapacity) {
+        switch (strategy) {
+            case "binary":
+                return new IntPriorityQueue(initialCapacity, 2);
+            case "4ary":
+                return new IntPriorityQueue(initialCapacity, 4);
+            case "8ary":
+                return new IntPriorityQueue(initialCapacity, 8);
+            case "pairing":
+                return new IntPairingHeap(initialCapacity);
+            case "bucket":
+                return new IntBucketQueue(initialCapacity, true);
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + strategy);
+        }
+    }
+
+    void offer(int id, int p);
+
+    int peek();
+
+    int poll();
+
+    /**
+     * Lowers the priority of a queued id
+     */
+    void decreaseKey(int id, int p);
+
+    /**
+     * Returns the implementation-defined slot of id, or -1 if it is not queued
+     */
+    int indexOf(int id);
+
+    default boolean contains(int id) {
+        return indexOf(id) != -1;
+    }
+
+    int priorityOf(int id);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+}
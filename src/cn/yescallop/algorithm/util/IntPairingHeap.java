@@ -0,0 +1,194 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A pairing heap of dense int ids with int priorities
+ * <p>
+ * Offer and decrease-key are O(1), poll is O(log n) amortized.
+ * Nodes are kept in parallel arrays so no objects are allocated.
+ *
+ * @author Scallop Ye
+ */
+public class IntPairingHeap implements IntIndexedQueue {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    private static final int ABSENT = -2;
+
+    private int[] child;
+
+    private int[] sibling;
+
+    /**
+     * Previous sibling, or parent for a first child, -1 for the root
+     */
+    private int[] left;
+
+    private int[] priority;
+
+    /**
+     * Scratch space for the two-pass merge
+     */
+    private int[] pairs;
+
+    private int root = -1;
+
+    private int size = 0;
+
+    public IntPairingHeap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public IntPairingHeap(int initialCapacity) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.child = new int[initialCapacity];
+        this.sibling = new int[initialCapacity];
+        this.left = new int[initialCapacity];
+        this.priority = new int[initialCapacity];
+        this.pairs = new int[DEFAULT_INITIAL_CAPACITY];
+        Arrays.fill(left, ABSENT);
+    }
+
+    private void ensureId(int id) {
+        int oldCapacity = left.length;
+        if (id < oldCapacity)
+            return;
+        int newCapacity = Math.max(id + 1, oldCapacity + (oldCapacity >> 1));
+        child = Arrays.copyOf(child, newCapacity);
+        sibling = Arrays.copyOf(sibling, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        priority = Arrays.copyOf(priority, newCapacity);
+        Arrays.fill(left, oldCapacity, newCapacity, ABSENT);
+    }
+
+    @Override
+    public void offer(int id, int p) {
+        if (id < 0)
+            throw new IllegalArgumentException();
+        ensureId(id);
+        if (left[id] != ABSENT)
+            throw new IllegalStateException("Already queued: " + id);
+        priority[id] = p;
+        child[id] = sibling[id] = left[id] = -1;
+        root = root == -1 ? id : link(root, id);
+        size++;
+    }
+
+    @Override
+    public int peek() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return root;
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        int result = root;
+        root = mergePairs(child[result]);
+        if (root != -1)
+            left[root] = -1;
+        left[result] = ABSENT;
+        size--;
+        return result;
+    }
+
+    @Override
+    public void decreaseKey(int id, int p) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        if (p > priority[id])
+            throw new IllegalArgumentException();
+        priority[id] = p;
+        if (id == root)
+            return;
+        int l = left[id];
+        int s = sibling[id];
+        if (child[l] == id)
+            child[l] = s;
+        else
+            sibling[l] = s;
+        if (s != -1)
+            left[s] = l;
+        sibling[id] = left[id] = -1;
+        root = link(root, id);
+    }
+
+    /**
+     * Returns id itself if it is queued, or -1 otherwise
+     */
+    @Override
+    public int indexOf(int id) {
+        return contains(id) ? id : -1;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id >= 0 && id < left.length && left[id] != ABSENT;
+    }
+
+    @Override
+    public int priorityOf(int id) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        return priority[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(left, ABSENT);
+        root = -1;
+        size = 0;
+    }
+
+    /**
+     * Links two roots, returning the new root
+     */
+    private int link(int a, int b) {
+        if (priority[b] < priority[a]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int c = child[a];
+        sibling[b] = c;
+        if (c != -1)
+            left[c] = b;
+        left[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    private int mergePairs(int first) {
+        if (first == -1)
+            return -1;
+        int n = 0;
+        while (first != -1) {
+            int a = first;
+            int b = sibling[a];
+            if (b == -1) {
+                first = -1;
+            } else {
+                first = sibling[b];
+                sibling[b] = left[b] = -1;
+            }
+            sibling[a] = left[a] = -1;
+            if (n == pairs.length)
+                pairs = Arrays.copyOf(pairs, n << 1);
+            pairs[n++] = b == -1 ? a : link(a, b);
+        }
+        int r = pairs[--n];
+        while (n > 0)
+            r = link(pairs[--n], r);
+        return r;
+    }
+}
@@ -0,0 +1,174 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min-heap of dense int ids with int priorities
+ * <p>
+ * The arity is a power of two; 4 or 8 keeps the children of a node
+ * within one or two cache lines and halves the heap height.
+ *
+ * @author Scallop Ye
+ */
+public class IntPriorityQueue implements IntIndexedQueue {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    private int[] queue;
+
+    private int[] priority;
+
+    /**
+     * Heap position of each id, -1 if absent
+     */
+    private int[] position;
+
+    private int size = 0;
+
+    private final int shift;
+
+    public IntPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, 2);
+    }
+
+    public IntPriorityQueue(int initialCapacity) {
+        this(initialCapacity, 2);
+    }
+
+    public IntPriorityQueue(int initialCapacity, int arity) {
+        if (initialCapacity < 1 || arity < 2 || Integer.bitCount(arity) != 1)
+            throw new IllegalArgumentException();
+        this.shift = Integer.numberOfTrailingZeros(arity);
+        this.queue = new int[initialCapacity];
+        this.priority = new int[initialCapacity];
+        this.position = new int[initialCapacity];
+        Arrays.fill(position, -1);
+    }
+
+    private void grow() {
+        int oldCapacity = queue.length;
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                (oldCapacity + 2) :
+                (oldCapacity >> 1));
+        if (newCapacity < 0)
+            throw new OutOfMemoryError();
+        queue = Arrays.copyOf(queue, newCapacity);
+    }
+
+    private void ensureId(int id) {
+        int oldCapacity = position.length;
+        if (id < oldCapacity)
+            return;
+        int newCapacity = Math.max(id + 1, oldCapacity + (oldCapacity >> 1));
+        position = Arrays.copyOf(position, newCapacity);
+        priority = Arrays.copyOf(priority, newCapacity);
+        Arrays.fill(position, oldCapacity, newCapacity, -1);
+    }
+
+    @Override
+    public void offer(int id, int p) {
+        if (id < 0)
+            throw new IllegalArgumentException();
+        ensureId(id);
+        if (position[id] != -1)
+            throw new IllegalStateException("Already queued: " + id);
+        int i = size;
+        if (i >= queue.length)
+            grow();
+        size = i + 1;
+        priority[id] = p;
+        siftUp(i, id);
+    }
+
+    @Override
+    public int peek() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return queue[0];
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        int s = --size;
+        int result = queue[0];
+        int x = queue[s];
+        position[result] = -1;
+        if (s != 0)
+            siftDown(0, x);
+        return result;
+    }
+
+    @Override
+    public void decreaseKey(int id, int p) {
+        int i = indexOf(id);
+        if (i == -1)
+            throw new NoSuchElementException();
+        if (p > priority[id])
+            throw new IllegalArgumentException();
+        priority[id] = p;
+        siftUp(i, id);
+    }
+
+    @Override
+    public int indexOf(int id) {
+        return id >= 0 && id < position.length ? position[id] : -1;
+    }
+
+    @Override
+    public int priorityOf(int id) {
+        if (!contains(id))
+            throw new NoSuchElementException();
+        return priority[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            position[queue[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int k, int id) {
+        int key = priority[id];
+        while (k > 0) {
+            int parent = (k - 1) >>> shift;
+            int e = queue[parent];
+            if (key >= priority[e])
+                break;
+            queue[k] = e;
+            position[e] = k;
+            k = parent;
+        }
+        queue[k] = id;
+        position[id] = k;
+    }
+
+    private void siftDown(int k, int id) {
+        int key = priority[id];
+        int half = (size + (1 << shift) - 2) >>> shift;
+        while (k < half) {
+            int child = (k << shift) + 1;
+            int c = queue[child];
+            int end = Math.min(child + (1 << shift), size);
+            for (int i = child + 1; i < end; i++) {
+                if (priority[c] > priority[queue[i]])
+                    c = queue[child = i];
+            }
+            if (key <= priority[c])
+                break;
+            queue[k] = c;
+            position[c] = k;
+            k = child;
+        }
+        queue[k] = id;
+        position[id] = k;
+    }
+}
@@ -0,0 +1,177 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of keys made of a long, or of a long and
+ * an int
+ * <p>
+ * Keys are stored inline in power-of-two arrays, a long[] and for two-word
+ * keys a parallel int[], and probed linearly, with no per-entry objects.
+ * A two-word key thus takes a 12-byte slot: 15 bytes per key when the
+ * table is at its load factor, but up to twice that right after it grows.
+ * The all-zero key marks an empty slot and is tracked by a flag instead.
+ *
+ * @author Scallop Ye
+ */
+public class LongHashSet {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.8f;
+
+    private final int words;
+
+    private long[] table;
+
+    /**
+     * Second words of the keys, or null with one word per key
+     */
+    private int[] table1;
+
+    private int mask;
+
+    private int size = 0;
+
+    private int threshold;
+
+    private boolean hasZero;
+
+    public LongHashSet() {
+        this(1, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public LongHashSet(int words) {
+        this(words, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public LongHashSet(int words, int initialCapacity) {
+        if ((words != 1 && words != 2) || initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.words = words;
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (initialCapacity / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.table = new long[capacity];
+        this.table1 = words == 2 ? new int[capacity] : null;
+        this.mask = capacity - 1;
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long k0, int k1) {
+        long h = k0 ^ k1 * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public boolean add(long key) {
+        return add(key, 0);
+    }
+
+    /**
+     * Adds a two-word key; with one word per key key1 must be 0
+     */
+    public boolean add(long key0, int key1) {
+        checkKey(key1);
+        if (key0 == 0 && key1 == 0) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = find(key0, key1);
+        if (i >= 0)
+            return false;
+        i = ~i;
+        table[i] = key0;
+        if (table1 != null)
+            table1[i] = key1;
+        if (++size > threshold)
+            rehash();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return contains(key, 0);
+    }
+
+    public boolean contains(long key0, int key1) {
+        checkKey(key1);
+        if (key0 == 0 && key1 == 0)
+            return hasZero;
+        return find(key0, key1) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        if (table1 != null)
+            Arrays.fill(table1, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    private void checkKey(int key1) {
+        if (words == 1 && key1 != 0)
+            throw new IllegalArgumentException("Two-word key in a one-word set");
+    }
+
+    /**
+     * Returns the slot of the key, or the complement of the free slot
+     * where it would go
+     */
+    private int find(long key0, int key1) {
+        long[] table = this.table;
+        int[] table1 = this.table1;
+        int i = hash(key0, key1) & mask;
+        if (table1 == null) {
+            while (true) {
+                long k = table[i];
+                if (k == key0)
+                    return i;
+                if (k == 0)
+                    return ~i;
+                i = (i + 1) & mask;
+            }
+        }
+        while (true) {
+            long k0 = table[i];
+            int k1 = table1[i];
+            if (k0 == key0 && k1 == key1)
+                return i;
+            if (k0 == 0 && k1 == 0)
+                return ~i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void rehash() {
+        long[] old = this.table;
+        int[] old1 = this.table1;
+        if (old.length > 1 << 29)
+            throw new OutOfMemoryError();
+        allocate((mask + 1) << 1);
+        for (int j = 0; j < old.length; j++) {
+            long k0 = old[j];
+            int k1 = old1 != null ? old1[j] : 0;
+            if (k0 == 0 && k1 == 0)
+                continue;
+            int i = ~find(k0, k1);
+            table[i] = k0;
+            if (table1 != null)
+                table1[i] = k1;
+        }
+    }
+}
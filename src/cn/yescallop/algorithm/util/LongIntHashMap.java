@@ -0,0 +1,242 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from the keys of a {@link LongHashSet}
+ * to non-negative ints
+ * <p>
+ * Keys and values are stored inline in parallel power-of-two arrays and
+ * probed linearly, with no per-entry objects. Removal shifts the entries
+ * after the slot back instead of leaving a tombstone, so a map whose keys
+ * come and go, such as an open list, never needs cleaning. The all-zero
+ * key marks an empty slot and is kept aside instead.
+ *
+ * @author Scallop Ye
+ */
+public class LongIntHashMap {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.8f;
+
+    private final int words;
+
+    private long[] keys;
+
+    /**
+     * Second words of the keys, or null with one word per key
+     */
+    private int[] keys1;
+
+    private int[] values;
+
+    private int mask;
+
+    private int size = 0;
+
+    private int threshold;
+
+    private int zeroValue = -1;
+
+    public LongIntHashMap() {
+        this(1, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public LongIntHashMap(int words) {
+        this(words, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public LongIntHashMap(int words, int initialCapacity) {
+        if ((words != 1 && words != 2) || initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.words = words;
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (initialCapacity / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.keys1 = words == 2 ? new int[capacity] : null;
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long k0, int k1) {
+        long h = k0 ^ k1 * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public int get(long key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Returns the value of a two-word key, or -1 if it is absent
+     */
+    public int get(long key0, int key1) {
+        checkKey(key1);
+        if (key0 == 0 && key1 == 0)
+            return zeroValue;
+        int i = find(key0, key1);
+        return i >= 0 ? values[i] : -1;
+    }
+
+    public void put(long key, int value) {
+        put(key, 0, value);
+    }
+
+    /**
+     * Maps a two-word key to value, which must not be negative;
+     * with one word per key key1 must be 0
+     */
+    public void put(long key0, int key1, int value) {
+        checkKey(key1);
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value: " + value);
+        if (key0 == 0 && key1 == 0) {
+            if (zeroValue == -1)
+                size++;
+            zeroValue = value;
+            return;
+        }
+        int i = find(key0, key1);
+        if (i >= 0) {
+            values[i] = value;
+            return;
+        }
+        i = ~i;
+        keys[i] = key0;
+        if (keys1 != null)
+            keys1[i] = key1;
+        values[i] = value;
+        if (++size > threshold)
+            rehash();
+    }
+
+    public int remove(long key) {
+        return remove(key, 0);
+    }
+
+    /**
+     * Removes a two-word key, returning its value or -1 if it was absent
+     */
+    public int remove(long key0, int key1) {
+        checkKey(key1);
+        if (key0 == 0 && key1 == 0) {
+            int v = zeroValue;
+            if (v != -1) {
+                zeroValue = -1;
+                size--;
+            }
+            return v;
+        }
+        int i = find(key0, key1);
+        if (i < 0)
+            return -1;
+        int v = values[i];
+        shiftBack(i);
+        size--;
+        return v;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        if (keys1 != null)
+            Arrays.fill(keys1, 0);
+        zeroValue = -1;
+        size = 0;
+    }
+
+    private void checkKey(int key1) {
+        if (words == 1 && key1 != 0)
+            throw new IllegalArgumentException("Two-word key in a one-word map");
+    }
+
+    /**
+     * Returns the slot of the key, or the complement of the free slot
+     * where it would go
+     */
+    private int find(long key0, int key1) {
+        long[] keys = this.keys;
+        int[] keys1 = this.keys1;
+        int i = hash(key0, key1) & mask;
+        if (keys1 == null) {
+            while (true) {
+                long k = keys[i];
+                if (k == key0)
+                    return i;
+                if (k == 0)
+                    return ~i;
+                i = (i + 1) & mask;
+            }
+        }
+        while (true) {
+            long k0 = keys[i];
+            int k1 = keys1[i];
+            if (k0 == key0 && k1 == key1)
+                return i;
+            if (k0 == 0 && k1 == 0)
+                return ~i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties slot i, moving back every following entry of the same run
+     * whose home slot is not after the gap
+     */
+    private void shiftBack(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k0 = keys[j];
+            int k1 = keys1 != null ? keys1[j] : 0;
+            if (k0 == 0 && k1 == 0)
+                break;
+            int home = hash(k0, k1) & mask;
+            if (((j - home) & mask) < ((j - i) & mask))
+                continue;
+            keys[i] = k0;
+            if (keys1 != null)
+                keys1[i] = k1;
+            values[i] = values[j];
+            i = j;
+        }
+        keys[i] = 0;
+        if (keys1 != null)
+            keys1[i] = 0;
+    }
+
+    private void rehash() {
+        long[] old = this.keys;
+        int[] old1 = this.keys1;
+        int[] oldValues = this.values;
+        if (old.length > 1 << 29)
+            throw new OutOfMemoryError();
+        allocate((mask + 1) << 1);
+        for (int j = 0; j < old.length; j++) {
+            long k0 = old[j];
+            int k1 = old1 != null ? old1[j] : 0;
+            if (k0 == 0 && k1 == 0)
+                continue;
+            int i = ~find(k0, k1);
+            keys[i] = k0;
+            if (keys1 != null)
+                keys1[i] = k1;
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free unbounded queue for many producers and a single consumer
+ * <p>
+ * Producers swap themselves in at the tail with one atomic exchange,
+ * the consumer follows the links from a stub node at the head.
+ *
+ * @author Scallop Ye
+ */
+public class MpscQueue<E> {
+
+    private static final class Node<E> {
+
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+
+    private Node<E> head;
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Appends e, safe to call from any thread
+     */
+    public void offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        Node<E> n = new Node<>(e);
+        Node<E> prev = tail.getAndSet(n);
+        prev.next = n;
+    }
+
+    /**
+     * Removes the head, or returns null if there is none visible yet;
+     * only the consumer thread may call this
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null)
+            return null;
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+}
@@ -0,0 +1,108 @@
+package cn.yescallop.algorithm.util;
+
+import java.util.Arrays;
+
+/**
+ * An arena of path records
+ * <p>
+ * Each record is one int packing the index of its parent record and the
+ * 3-bit move leading to it, so a search node only needs an int to find
+ * its way back to the root instead of a reference to its parent node,
+ * and the store four bytes per record, for at most 2^29 - 1 records.
+ * <p>
+ * Records are appended, but one that no other record descends from, such
+ * as that of a node still open, may be given a new parent with
+ * {@link #set} instead of being left behind when the node is reparented.
+ *
+ * @author Scallop Ye
+ */
+public class PathStore {
+
+    /**
+     * The record of the empty path
+     */
+    public static final int ROOT = -1;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private static final int MAX_RECORDS = (1 << 29) - 1;
+
+    private int[] records;
+
+    private int size = 0;
+
+    public PathStore() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public PathStore(int initialCapacity) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.records = new int[initialCapacity];
+    }
+
+    /**
+     * Appends the path of parent followed by move, returning its record
+     */
+    public int add(int parent, int move) {
+        checkMove(move);
+        int i = size;
+        if (i == records.length) {
+            if (i == MAX_RECORDS)
+                throw new OutOfMemoryError();
+            records = Arrays.copyOf(records, (int) Math.min(MAX_RECORDS, i + Math.max(1L, i >> 1)));
+        }
+        records[i] = (parent + 1) << 3 | move;
+        size = i + 1;
+        return i;
+    }
+
+    /**
+     * Makes record the path of parent followed by move; no other record
+     * may descend from it
+     */
+    public void set(int record, int parent, int move) {
+        checkMove(move);
+        if (record < 0 || record >= size)
+            throw new IndexOutOfBoundsException("Record: " + record);
+        records[record] = (parent + 1) << 3 | move;
+    }
+
+    private static void checkMove(int move) {
+        if (move < 0 || move > 7)
+            throw new IllegalArgumentException("Move out of range: " + move);
+    }
+
+    public int parent(int record) {
+        return (records[record] >>> 3) - 1;
+    }
+
+    public int move(int record) {
+        return records[record] & 7;
+    }
+
+    public int depth(int record) {
+        int d = 0;
+        for (int r = record; r != ROOT; r = parent(r))
+            d++;
+        return d;
+    }
+
+    /**
+     * Returns the moves from the root to record
+     */
+    public int[] path(int record) {
+        int[] path = new int[depth(record)];
+        for (int i = path.length - 1, r = record; i >= 0; i--, r = parent(r))
+            path[i] = move(r);
+        return path;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package cn.yescallop.algorithm.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a whole search, spanning its duration
+ *
+ * @author Scallop Ye
+ */
+@Name("cn.yescallop.algorithm.Search")
+@Label("Search")
+@Category("Algorithm")
+@Description("A path search with its node counters")
+final class SearchEvent extends Event {
+
+    @Label("Search")
+    String search;
+
+    @Label("Path Length")
+    int pathLength;
+
+    @Label("Expansions")
+    long expansions;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Reopenings")
+    long reopenings;
+
+    @Label("Peak Open")
+    int peakOpen;
+
+    @Label("Peak Closed")
+    int peakClosed;
+
+    @Label("Generate Time")
+    @Timespan
+    long generateTime;
+
+    @Label("Queue Time")
+    @Timespan
+    long queueTime;
+}
@@ -0,0 +1,58 @@
+package cn.yescallop.algorithm.util;
+
+/**
+ * Receives the events of a single search as they happen
+ * <p>
+ * Searches take a listener that may be null, in which case they only pay
+ * a null check per event. Nothing is timed unless {@link #timed()}.
+ *
+ * @author Scallop Ye
+ */
+public interface SearchListener {
+
+    /**
+     * Called as a node of the given f is taken off the open list,
+     * with the sizes of the open and closed lists at that moment
+     */
+    default void expanded(int f, int open, int closed) {
+    }
+
+    /**
+     * Called for each child of an expanded node
+     */
+    default void generated() {
+    }
+
+    /**
+     * Called for a child already closed, or open and no cheaper
+     */
+    default void duplicate() {
+    }
+
+    /**
+     * Called for a child already open that is reached more cheaply
+     */
+    default void reopened() {
+    }
+
+    /**
+     * Returns whether the search should time its queue work and the
+     * generation of children, their estimates included
+     */
+    default boolean timed() {
+        return false;
+    }
+
+    default void generateTime(long nanos) {
+    }
+
+    default void queueTime(long nanos) {
+    }
+
+    /**
+     * Called once as the search ends, with the length of the path found
+     * or -1 if there is none
+     */
+    default void finished(int pathLength) {
+    }
+}
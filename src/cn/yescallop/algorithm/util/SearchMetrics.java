@@ -0,0 +1,244 @@
+package cn.yescallop.algorithm.util;
+
+import jdk.jfr.EventType;
+
+import java.util.Arrays;
+
+/**
+ * A listener counting the events of one search
+ * <p>
+ * Besides totals and peaks it keeps a histogram of expansions by f, which
+ * shows where a search stalls on a plateau of its heuristic.
+ *
+ * @author Scallop Ye
+ */
+public class SearchMetrics implements SearchListener {
+
+    private static final EventType SEARCH_EVENT = EventType.getEventType(SearchEvent.class);
+
+    private final boolean timed;
+
+    private long expansions, generated, duplicates, reopenings;
+    private int peakOpen, peakClosed;
+    private long generateNanos, queueNanos;
+    private long[] byF = new long[64];
+    private int maxF = -1;
+    private int pathLength = -1;
+
+    public SearchMetrics() {
+        this(false);
+    }
+
+    /**
+     * Creates metrics that also time generation and queue work if timed,
+     * at the cost of two clock reads per timed call
+     */
+    public SearchMetrics(boolean timed) {
+        this.timed = timed;
+    }
+
+    /**
+     * Returns the listener a search named search should report to: the
+     * given one, which may be null, or while Flight Recorder records
+     * {@link SearchEvent}, one that also commits the event when the search
+     * finishes
+     */
+    public static SearchListener forSearch(String search, SearchListener listener) {
+        if (!SEARCH_EVENT.isEnabled())
+            return listener;
+        return new Recorder(search, listener, new SearchEvent());
+    }
+
+    @Override
+    public void expanded(int f, int open, int closed) {
+        expansions++;
+        if (open > peakOpen)
+            peakOpen = open;
+        if (closed > peakClosed)
+            peakClosed = closed;
+        if (f < 0)
+            return;
+        if (f >= byF.length)
+            byF = Arrays.copyOf(byF, Math.max(f + 1, byF.length << 1));
+        byF[f]++;
+        if (f > maxF)
+            maxF = f;
+    }
+
+    @Override
+    public void generated() {
+        generated++;
+    }
+
+    @Override
+    public void duplicate() {
+        duplicates++;
+    }
+
+    @Override
+    public void reopened() {
+        reopenings++;
+    }
+
+    @Override
+    public boolean timed() {
+        return timed;
+    }
+
+    @Override
+    public void generateTime(long nanos) {
+        generateNanos += nanos;
+    }
+
+    @Override
+    public void queueTime(long nanos) {
+        queueNanos += nanos;
+    }
+
+    @Override
+    public void finished(int pathLength) {
+        this.pathLength = pathLength;
+    }
+
+    public long expansions() {
+        return expansions;
+    }
+
+    public long generatedNodes() {
+        return generated;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    public long reopenings() {
+        return reopenings;
+    }
+
+    public int peakOpen() {
+        return peakOpen;
+    }
+
+    public int peakClosed() {
+        return peakClosed;
+    }
+
+    public long generateNanos() {
+        return generateNanos;
+    }
+
+    public long queueNanos() {
+        return queueNanos;
+    }
+
+    public int pathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns the number of nodes expanded with each f,
+     * ending at the largest f expanded
+     */
+    public long[] expansionsByF() {
+        return Arrays.copyOf(byF, maxF + 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append("Expanded: ").append(expansions)
+                .append(", generated: ").append(generated)
+                .append(", duplicates: ").append(duplicates)
+                .append(", reopened: ").append(reopenings)
+                .append(", peak open: ").append(peakOpen)
+                .append(", peak closed: ").append(peakClosed);
+        if (timed) {
+            sb.append(", generate: ").append(generateNanos / 1e6).append("ms")
+                    .append(", queue: ").append(queueNanos / 1e6).append("ms");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Counts a search for its event, forwarding every call to the
+     * listener given, if any
+     */
+    private static class Recorder extends SearchMetrics {
+
+        private final String search;
+        private final SearchListener listener;
+        private final SearchEvent event;
+
+        Recorder(String search, SearchListener listener, SearchEvent event) {
+            super(listener != null && listener.timed());
+            this.search = search;
+            this.listener = listener;
+            this.event = event;
+            event.begin();
+        }
+
+        @Override
+        public void expanded(int f, int open, int closed) {
+            super.expanded(f, open, closed);
+            if (listener != null)
+                listener.expanded(f, open, closed);
+        }
+
+        @Override
+        public void generated() {
+            super.generated();
+            if (listener != null)
+                listener.generated();
+        }
+
+        @Override
+        public void duplicate() {
+            super.duplicate();
+            if (listener != null)
+                listener.duplicate();
+        }
+
+        @Override
+        public void reopened() {
+            super.reopened();
+            if (listener != null)
+                listener.reopened();
+        }
+
+        @Override
+        public void generateTime(long nanos) {
+            super.generateTime(nanos);
+            if (listener != null)
+                listener.generateTime(nanos);
+        }
+
+        @Override
+        public void queueTime(long nanos) {
+            super.queueTime(nanos);
+            if (listener != null)
+                listener.queueTime(nanos);
+        }
+
+        @Override
+        public void finished(int pathLength) {
+            super.finished(pathLength);
+            if (listener != null)
+                listener.finished(pathLength);
+            event.end();
+            if (event.shouldCommit()) {
+                event.search = search;
+                event.pathLength = pathLength;
+                event.expansions = expansions();
+                event.generated = generatedNodes();
+                event.duplicates = duplicates();
+                event.reopenings = reopenings();
+                event.peakOpen = peakOpen();
+                event.peakClosed = peakClosed();
+                event.generateTime = generateNanos();
+                event.queueTime = queueNanos();
+                event.commit();
+            }
+        }
+    }
+}
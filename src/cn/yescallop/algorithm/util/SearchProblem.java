@@ -0,0 +1,28 @@
+package cn.yescallop.algorithm.util;
+
+/**
+ * A unit-cost search problem over states with value equality
+ *
+ * @author Scallop Ye
+ */
+public interface SearchProblem<S> {
+
+    S initial();
+
+    boolean isGoal(S s);
+
+    /**
+     * Returns an admissible estimate of the cost from s to a goal
+     */
+    int estimate(S s);
+
+    /**
+     * Returns the number of move codes, numbered from 0
+     */
+    int moves();
+
+    /**
+     * Returns the state reached by move m, or null if m is impossible
+     */
+    S move(S s, int m);
+}
@@ -0,0 +1,55 @@
+package cn.yescallop.algorithm.maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class BitGridTest {
+
+    @Test
+    void matchesBreadthFirstSearch() {
+        Random random = new Random(22);
+        for (int i = 0; i < 1500; i++) {
+            int width = random.nextInt(4) == 0 ? 64 * (1 + random.nextInt(3)) + random.nextInt(3) - 1 : 1 + random.nextInt(200);
+            Grid grid = Grid.random(width, 2 + random.nextInt(40), random.nextDouble() * 0.5, random);
+            BitGrid bits = BitGrid.of(grid);
+            for (int q = 0; q < 5; q++) {
+                int sx = random.nextInt(grid.width), sy = random.nextInt(grid.height);
+                int tx = random.nextInt(grid.width), ty = random.nextInt(grid.height);
+                String query = grid.width + "x" + grid.height + " (" + sx + ", " + sy + ") to (" + tx + ", " + ty + ")";
+                int expected = Mazes.distance(grid, sx, sy, tx, ty);
+                assertEquals(expected, bits.distance(sx, sy, tx, ty), query);
+                assertEquals(expected != -1, bits.isReachable(sx, sy, tx, ty), query);
+            }
+        }
+    }
+
+    @Test
+    void followsEdits() {
+        Random random = new Random(23);
+        for (int i = 0; i < 200; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(150), 2 + random.nextInt(30), random.nextDouble() * 0.4, random);
+            int width = grid.width, height = grid.height;
+            boolean[] flipped = new boolean[width * height];
+            BitGrid bits = BitGrid.of(grid);
+            for (int q = 0; q < 20; q++) {
+                for (int k = random.nextInt(1 + width * height / 20); k > 0; k--) {
+                    int x = random.nextInt(width), y = random.nextInt(height);
+                    flipped[y * width + x] = !flipped[y * width + x];
+                    bits.setWall(x, y, Mazes.isWall(grid, flipped, x, y));
+                }
+                int sx = random.nextInt(width), sy = random.nextInt(height);
+                int tx = random.nextInt(width), ty = random.nextInt(height);
+                String query = width + "x" + height + " (" + sx + ", " + sy + ") to (" + tx + ", " + ty + ")";
+                int expected = Mazes.distance(grid, flipped, sx, sy, tx, ty);
+                assertEquals(expected, bits.distance(sx, sy, tx, ty), query);
+                assertEquals(expected != -1, bits.isReachable(sx, sy, tx, ty), query);
+            }
+        }
+    }
+}
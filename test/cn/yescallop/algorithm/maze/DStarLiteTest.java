@@ -0,0 +1,63 @@
+package cn.yescallop.algorithm.maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class DStarLiteTest {
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    @Test
+    void matchesBreadthFirstSearch() {
+        Random random = new Random(19);
+        for (int i = 0; i < 2000; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(50), 2 + random.nextInt(50), random.nextDouble() * 0.5, random);
+            Mazes.assertShortest(grid, 0, 0, grid.destX, grid.destY, new DStarLite(grid).findPath());
+        }
+    }
+
+    @Test
+    void staysShortestAcrossEditsAndMoves() {
+        Random random = new Random(20);
+        for (int i = 0; i < 300; i++) {
+            Grid grid = Grid.random(2 + random.nextInt(40), 2 + random.nextInt(40), random.nextDouble() * 0.4, random);
+            int width = grid.width, height = grid.height;
+            boolean[] flipped = new boolean[width * height];
+            int sx = random.nextInt(width), sy = random.nextInt(height);
+            int tx = random.nextInt(width), ty = random.nextInt(height);
+            DStarLite search = new DStarLite(grid, sx, sy, tx, ty);
+            for (int q = 0; q < 30; q++) {
+                int[] path = search.findPath();
+                Mazes.assertShortest(grid, flipped, sx, sy, tx, ty, path);
+                if (path != null && path.length > 0 && random.nextInt(4) != 0) {
+                    sx += dx[path[0]];
+                    sy += dy[path[0]];
+                    search.moveStart(sx, sy);
+                } else if (random.nextInt(4) == 0) {
+                    sx = random.nextInt(width);
+                    sy = random.nextInt(height);
+                    search.moveStart(sx, sy);
+                }
+                for (int k = random.nextInt(4 + width * height / 50); k > 0; k--) {
+                    int x = random.nextInt(width), y = random.nextInt(height);
+                    flipped[y * width + x] = !flipped[y * width + x];
+                    search.setWall(x, y, Mazes.isWall(grid, flipped, x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsCellsOutsideTheGrid() {
+        DStarLite search = new DStarLite(Grid.random(8, 8, 0, new Random(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> search.setWall(8, 0, true));
+        assertThrows(IndexOutOfBoundsException.class, () -> search.moveStart(0, -1));
+    }
+}
@@ -0,0 +1,125 @@
+package cn.yescallop.algorithm.maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class DistanceFieldTest {
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    @Test
+    void matchesBreadthFirstFromEveryCell() {
+        Random random = new Random(20);
+        for (int i = 0; i < 100; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(40), 2 + random.nextInt(40), random.nextDouble() * 0.5, random);
+            DistanceField field = DistanceField.build(grid);
+            for (int y = 0; y < grid.height; y++) {
+                for (int x = 0; x < grid.width; x++) {
+                    String query = grid.width + "x" + grid.height + " (" + x + ", " + y + ")";
+                    int expected = Mazes.distance(grid, x, y, grid.destX, grid.destY);
+                    assertEquals(expected, field.distance(x, y), query);
+                    int[] path = field.path(x, y);
+                    if (expected == DistanceField.UNREACHABLE) {
+                        assertNull(path, query);
+                        continue;
+                    }
+                    assertNotNull(path, query);
+                    assertEquals(expected, path.length, query);
+                    assertTrue(Mazes.isValid(grid, x, y, grid.destX, grid.destY, path), query);
+                    assertDescends(field, x, y, path, query);
+                }
+            }
+        }
+    }
+
+    @Test
+    void takesTheNearestOfManySources() {
+        Random random = new Random(21);
+        for (int i = 0; i < 30; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(30), 2 + random.nextInt(30), random.nextDouble() * 0.5, random);
+            int n = 1 + random.nextInt(5);
+            int[] xs = new int[n], ys = new int[n];
+            for (int j = 0; j < n; j++) {
+                xs[j] = random.nextInt(grid.width);
+                ys[j] = random.nextInt(grid.height);
+            }
+            DistanceField field = DistanceField.build(grid, xs, ys);
+            for (int y = 0; y < grid.height; y++) {
+                for (int x = 0; x < grid.width; x++) {
+                    String query = grid.width + "x" + grid.height + " (" + x + ", " + y + ")";
+                    int expected = DistanceField.UNREACHABLE;
+                    for (int j = 0; j < n; j++) {
+                        int d = Mazes.distance(grid, x, y, xs[j], ys[j]);
+                        if (d != -1 && (expected == DistanceField.UNREACHABLE || d < expected))
+                            expected = d;
+                    }
+                    assertEquals(expected, field.distance(x, y), query);
+                    int[] path = field.path(x, y);
+                    if (path != null)
+                        assertDescends(field, x, y, path, query);
+                }
+            }
+        }
+    }
+
+    /**
+     * A frontier past the split threshold, checked by the local rule that
+     * defines breadth-first distances: sources are 0, and any other
+     * reachable cell is one more than its nearest open neighbour
+     */
+    @Test
+    void splitsLargeFrontiersConsistently() {
+        Random random = new Random(22);
+        Grid grid = Grid.random(700, 600, 0.3, random);
+        int n = 2000;
+        int[] xs = new int[n], ys = new int[n];
+        boolean[] source = new boolean[grid.width * grid.height];
+        for (int j = 0; j < n; j++) {
+            xs[j] = random.nextInt(grid.width);
+            ys[j] = random.nextInt(grid.height);
+            if (!grid.isWall(xs[j], ys[j]))
+                source[ys[j] * grid.width + xs[j]] = true;
+        }
+        DistanceField field = DistanceField.build(grid, xs, ys);
+        for (int y = 0; y < grid.height; y++) {
+            for (int x = 0; x < grid.width; x++) {
+                int d = field.distance(x, y);
+                if (grid.isWall(x, y) || source[y * grid.width + x]) {
+                    assertEquals(grid.isWall(x, y) ? DistanceField.UNREACHABLE : 0, d);
+                    continue;
+                }
+                int nearest = DistanceField.UNREACHABLE;
+                for (int m = 0; m < 8; m++) {
+                    int nx = x + dx[m], ny = y + dy[m];
+                    if (nx < 0 || nx >= grid.width || ny < 0 || ny >= grid.height)
+                        continue;
+                    int nd = field.distance(nx, ny);
+                    if (nd != DistanceField.UNREACHABLE && (nearest == DistanceField.UNREACHABLE || nd < nearest))
+                        nearest = nd;
+                }
+                assertEquals(nearest == DistanceField.UNREACHABLE ? DistanceField.UNREACHABLE : nearest + 1, d,
+                        "(" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    /**
+     * Replays path, checking that every move is one closer
+     */
+    private static void assertDescends(DistanceField field, int x, int y, int[] path, String query) {
+        int d = field.distance(x, y);
+        for (int m : path) {
+            x += dx[m];
+            y += dy[m];
+            assertEquals(--d, field.distance(x, y), query);
+        }
+        assertEquals(0, d, query);
+    }
+}
@@ -0,0 +1,46 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntPriorityQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class GridSearchTest {
+
+    @Test
+    void matchesBreadthFirstSearch() {
+        Random random = new Random(21);
+        GridSearch search = new GridSearch();
+        for (int i = 0; i < 3000; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(40), 2 + random.nextInt(40), random.nextDouble() * 0.5, random);
+            for (int q = 0; q < 5; q++) {
+                int sx = random.nextInt(grid.width), sy = random.nextInt(grid.height);
+                int tx = random.nextInt(grid.width), ty = random.nextInt(grid.height);
+                Mazes.assertShortest(grid, sx, sy, tx, ty, search.findPath(grid, sx, sy, tx, ty));
+            }
+        }
+    }
+
+    @Test
+    void returnsThePathOfMain() {
+        Random random = new Random(1);
+        GridSearch search = new GridSearch();
+        for (int i = 0; i < 500; i++) {
+            Grid grid = Grid.random(2 + random.nextInt(60), 2 + random.nextInt(60), random.nextDouble() * 0.4, random);
+            assertArrayEquals(Main.findPath(grid, new IntPriorityQueue(grid.width * grid.height)), search.findPath(grid));
+        }
+    }
+
+    @Test
+    void rejectsCellsOutsideTheGrid() {
+        Grid grid = Grid.random(8, 8, 0, new Random(0));
+        GridSearch search = new GridSearch();
+        assertThrows(IndexOutOfBoundsException.class, () -> search.findPath(grid, 8, 0, 0, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> search.findPath(grid, 0, 0, 0, -1));
+    }
+}
@@ -0,0 +1,54 @@
+package cn.yescallop.algorithm.maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class HierarchicalIndexTest {
+
+    @Test
+    void findsValidPathsExactlyWhenTheyExist() {
+        Random random = new Random(18);
+        for (int i = 0; i < 1000; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(60), 2 + random.nextInt(60), random.nextDouble() * 0.5, random);
+            HierarchicalIndex index = HierarchicalIndex.build(grid, 2 + random.nextInt(15));
+            for (int q = 0; q < 10; q++) {
+                int sx = random.nextInt(grid.width), sy = random.nextInt(grid.height);
+                int tx = random.nextInt(grid.width), ty = random.nextInt(grid.height);
+                String query = grid.width + "x" + grid.height + " (" + sx + ", " + sy + ") to (" + tx + ", " + ty + ")";
+                int[] path = index.findPath(sx, sy, tx, ty);
+                if (Mazes.distance(grid, sx, sy, tx, ty) == -1) {
+                    assertNull(path, query);
+                } else {
+                    assertNotNull(path, query);
+                    assertTrue(Mazes.isValid(grid, sx, sy, tx, ty, path), query);
+                }
+            }
+        }
+    }
+
+    @Test
+    void staysCloseToShortestWithDefaultClusters() {
+        Random random = new Random(19);
+        long found = 0, shortest = 0;
+        for (int i = 0; i < 300; i++) {
+            Grid grid = Grid.random(32 + random.nextInt(100), 32 + random.nextInt(100), random.nextDouble() * 0.3, random);
+            HierarchicalIndex index = HierarchicalIndex.build(grid);
+            for (int q = 0; q < 10; q++) {
+                int sx = random.nextInt(grid.width), sy = random.nextInt(grid.height);
+                int tx = random.nextInt(grid.width), ty = random.nextInt(grid.height);
+                int expected = Mazes.distance(grid, sx, sy, tx, ty);
+                if (expected == -1)
+                    continue;
+                found += index.findPath(sx, sy, tx, ty).length;
+                shortest += expected;
+            }
+        }
+        assertTrue(found <= shortest * 1.1, "Paths of " + found + " moves in all, shortest " + shortest);
+    }
+}
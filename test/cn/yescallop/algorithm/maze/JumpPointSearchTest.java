@@ -0,0 +1,32 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntPriorityQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * @author Scallop Ye
+ */
+class JumpPointSearchTest {
+
+    @Test
+    void matchesBreadthFirstSearch() {
+        Random random = new Random(17);
+        for (int i = 0; i < 3000; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(50), 2 + random.nextInt(50), random.nextDouble() * 0.5, random);
+            int[] path = JumpPointSearch.findPath(grid, new IntPriorityQueue(grid.width * grid.height));
+            Mazes.assertShortest(grid, 0, 0, grid.destX, grid.destY, path);
+        }
+    }
+
+    @Test
+    void findsShortestPathsOnOpenGrids() {
+        Random random = new Random(18);
+        for (int i = 0; i < 200; i++) {
+            Grid grid = Grid.random(2 + random.nextInt(100), 2 + random.nextInt(100), 0.02, random);
+            int[] path = JumpPointSearch.findPath(grid, new IntPriorityQueue(grid.width * grid.height));
+            Mazes.assertShortest(grid, 0, 0, grid.destX, grid.destY, path);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package cn.yescallop.algorithm.maze;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Reference answers for maze tests, by plain breadth-first search
+ *
+ * @author Scallop Ye
+ */
+final class Mazes {
+
+    private static final int[] dx = {0, 1, 0, -1, -1, 1, 1, -1};
+    private static final int[] dy = {-1, 0, 1, 0, 1, -1, 1, -1};
+
+    private Mazes() {
+    }
+
+    /**
+     * Returns the number of moves on a shortest path, or -1 if there is none
+     */
+    static int distance(Grid grid, int startX, int startY, int destX, int destY) {
+        return distance(grid, new boolean[grid.width * grid.height], startX, startY, destX, destY);
+    }
+
+    /**
+     * Like {@link #distance(Grid, int, int, int, int)}, with the cells set
+     * in flipped being the opposite of those of the grid
+     */
+    static int distance(Grid grid, boolean[] flipped, int startX, int startY, int destX, int destY) {
+        int[] path = path(grid, flipped, startX, startY, destX, destY);
+        return path == null ? -1 : path.length;
+    }
+
+    /**
+     * Returns a shortest path, or null if there is none
+     */
+    static int[] path(Grid grid, boolean[] flipped, int startX, int startY, int destX, int destY) {
+        int width = grid.width, height = grid.height;
+        if (isWall(grid, flipped, startX, startY) || isWall(grid, flipped, destX, destY))
+            return null;
+        int[] dist = new int[width * height];
+        int[] move = new int[width * height];
+        Arrays.fill(dist, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int start = startY * width + startX;
+        dist[start] = 0;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int cur = queue.poll();
+            int x = cur % width, y = cur / width;
+            if (x == destX && y == destY) {
+                int[] path = new int[dist[cur]];
+                for (int i = path.length - 1; i >= 0; i--) {
+                    path[i] = move[cur];
+                    cur -= dy[move[cur]] * width + dx[move[cur]];
+                }
+                return path;
+            }
+            for (int m = 0; m < 8; m++) {
+                int nx = x + dx[m], ny = y + dy[m];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || isWall(grid, flipped, nx, ny))
+                    continue;
+                int id = ny * width + nx;
+                if (dist[id] == -1) {
+                    dist[id] = dist[cur] + 1;
+                    move[id] = m;
+                    queue.add(id);
+                }
+            }
+        }
+        return null;
+    }
+
+    static boolean isWall(Grid grid, boolean[] flipped, int x, int y) {
+        return grid.isWall(x, y) != flipped[y * grid.width + x];
+    }
+
+    /**
+     * Returns whether the moves lead from start to dest through open cells
+     */
+    static boolean isValid(Grid grid, int startX, int startY, int destX, int destY, int[] path) {
+        return isValid(grid, new boolean[grid.width * grid.height], startX, startY, destX, destY, path);
+    }
+
+    static boolean isValid(Grid grid, boolean[] flipped, int startX, int startY, int destX, int destY, int[] path) {
+        int x = startX, y = startY;
+        if (isWall(grid, flipped, x, y))
+            return false;
+        for (int m : path) {
+            x += dx[m];
+            y += dy[m];
+            if (x < 0 || x >= grid.width || y < 0 || y >= grid.height || isWall(grid, flipped, x, y))
+                return false;
+        }
+        return x == destX && y == destY;
+    }
+
+    /**
+     * Checks that path is a shortest path, or null exactly when there is none
+     */
+    static void assertShortest(Grid grid, int startX, int startY, int destX, int destY, int[] path) {
+        assertShortest(grid, new boolean[grid.width * grid.height], startX, startY, destX, destY, path);
+    }
+
+    static void assertShortest(Grid grid, boolean[] flipped, int startX, int startY, int destX, int destY, int[] path) {
+        int expected = distance(grid, flipped, startX, startY, destX, destY);
+        String query = grid.width + "x" + grid.height + " (" + startX + ", " + startY
+                + ") to (" + destX + ", " + destY + ")";
+        if (expected == -1) {
+            if (path != null)
+                throw new AssertionError("Path found where there is none: " + query);
+            return;
+        }
+        if (path == null)
+            throw new AssertionError("No path found: " + query);
+        if (!isValid(grid, flipped, startX, startY, destX, destY, path))
+            throw new AssertionError("Invalid path: " + query);
+        if (path.length != expected)
+            throw new AssertionError("Path of " + path.length + " moves, expected " + expected + ": " + query);
+    }
+}
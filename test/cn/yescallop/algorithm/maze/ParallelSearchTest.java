@@ -0,0 +1,62 @@
+package cn.yescallop.algorithm.maze;
+
+import cn.yescallop.algorithm.util.IntPriorityQueue;
+import cn.yescallop.algorithm.util.SearchMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class ParallelSearchTest {
+
+    @Test
+    void matchesBreadthFirstSearch() throws InterruptedException {
+        Random random = new Random(8);
+        for (int i = 0; i < 300; i++) {
+            Grid grid = Grid.random(1 + random.nextInt(40), 2 + random.nextInt(40), random.nextDouble() * 0.5, random);
+            int[] path = Main.findPathParallel(grid, 1 + random.nextInt(4));
+            Mazes.assertShortest(grid, 0, 0, grid.destX, grid.destY, path);
+        }
+    }
+
+    /**
+     * The only way down passes (0, 65536), whose {@link Status} hash is that
+     * of (1, 0)
+     */
+    @Test
+    void keysCellsPastSixteenBits(@TempDir Path dir) throws IOException, InterruptedException {
+        StringBuilder text = new StringBuilder();
+        for (int y = 0; y < 65540; y++)
+            text.append(y == 65536 ? "[0,1]\n" : y == 65539 ? "[0,2]\n" : "[0,0]\n");
+        Path file = dir.resolve("tall.txt");
+        Files.writeString(file, text);
+        Grid grid = Grid.readText(file);
+        Mazes.assertShortest(grid, 0, 0, grid.destX, grid.destY, Main.findPathParallel(grid, 4));
+    }
+
+    @Test
+    void reportsTheCountsOfAllWorkers() throws InterruptedException {
+        Grid grid = Grid.random(200, 200, 0.2, new Random(10));
+        int[] expected = Main.findPath(grid, new IntPriorityQueue(grid.width * grid.height));
+        SearchMetrics metrics = new SearchMetrics(true);
+        int[] path = Main.findPathParallel(grid, 4, metrics);
+        assertNotNull(path);
+        assertEquals(expected.length, path.length);
+        assertEquals(path.length, metrics.pathLength());
+        assertTrue(metrics.expansions() > 0);
+        assertTrue(metrics.generatedNodes() >= metrics.expansions());
+        assertTrue(metrics.peakOpen() > 0 && metrics.peakClosed() > 0);
+        long[] byF = metrics.expansionsByF();
+        assertEquals(metrics.expansions(), Arrays.stream(byF).sum());
+        assertTrue(byF.length - 1 >= path.length, "The goal is expanded");
+    }
+}
@@ -0,0 +1,81 @@
+package cn.yescallop.algorithm.maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class PathCacheTest {
+
+    private static PathCache cache(Grid grid, long maxCells) {
+        GridSearch search = new GridSearch();
+        return new PathCache(grid.width, grid.height, maxCells,
+                (sx, sy, tx, ty) -> search.findPath(grid, sx, sy, tx, ty));
+    }
+
+    @Test
+    void neverServesAPathFromAWall() {
+        Random random = new Random(23);
+        for (int i = 0; i < 200; i++) {
+            Grid grid = Grid.random(2 + random.nextInt(30), 2 + random.nextInt(30), 0.3 + random.nextDouble() * 0.3, random);
+            PathCache cache = cache(grid, 4096);
+            for (int q = 0; q < 40; q++) {
+                int sx = random.nextInt(grid.width), sy = random.nextInt(grid.height);
+                int tx = random.nextInt(grid.width), ty = random.nextInt(grid.height);
+                // asked twice, so that the second answer comes from the cache
+                for (int k = 0; k < 2; k++)
+                    Mazes.assertShortest(grid, sx, sy, tx, ty, cache.findPath(sx, sy, tx, ty));
+            }
+            assertTrue(cache.hits() + cache.subPathHits() >= 40);
+        }
+    }
+
+    @Test
+    void wallEndpointIsAMissThenAHit() {
+        Random random = new Random(0);
+        Grid grid;
+        do {
+            grid = Grid.random(16, 16, 0.3, random);
+        } while (!grid.isWall(5, 5));
+        PathCache cache = cache(grid, 4096);
+        assertNull(cache.findPath(5, 5, 0, 0));
+        assertNull(cache.findPath(5, 5, 0, 0));
+        assertNull(cache.findPath(0, 0, 5, 5));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void staysShortestAcrossEdits() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            Grid grid = Grid.random(2 + random.nextInt(40), 2 + random.nextInt(40), random.nextDouble() * 0.4, random);
+            int width = grid.width, height = grid.height;
+            boolean[] flipped = new boolean[width * height];
+            PathCache cache = new PathCache(width, height, 50 + random.nextInt(2000),
+                    (sx, sy, tx, ty) -> Mazes.path(grid, flipped, sx, sy, tx, ty));
+            int[][] points = new int[6][];
+            for (int k = 0; k < points.length; k++)
+                points[k] = new int[]{random.nextInt(width), random.nextInt(height)};
+            for (int q = 0; q < 300; q++) {
+                if (random.nextInt(20) == 0) {
+                    int x0 = random.nextInt(width), y0 = random.nextInt(height);
+                    int x1 = Math.min(width - 1, x0 + random.nextInt(3));
+                    int y1 = Math.min(height - 1, y0 + random.nextInt(3));
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++)
+                            flipped[y * width + x] = random.nextBoolean();
+                    }
+                    cache.invalidate(x0, y0, x1, y1);
+                }
+                int[] a = points[random.nextInt(points.length)];
+                int[] b = points[random.nextInt(points.length)];
+                Mazes.assertShortest(grid, flipped, a[0], a[1], b[0], b[1], cache.findPath(a[0], a[1], b[0], b[1]));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package cn.yescallop.algorithm.puzzle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class ExternalBFSTest {
+
+    /**
+     * Boards of the 3x3 puzzle at each distance from the goal,
+     * the space starting in a corner
+     */
+    private static final long[] LAYERS_3X3 = {
+            1, 2, 4, 8, 16, 20, 39, 62, 116, 152, 286, 396, 748, 1024, 1893, 2512,
+            4485, 5638, 9529, 10878, 16993, 17110, 23952, 20224, 24047, 15578,
+            14560, 6274, 3910, 760, 221, 2
+    };
+
+    @Test
+    void countsTheLayersOf3x3(@TempDir Path dir) throws IOException {
+        // small buffers make up to a hundred runs a layer, merged four at a time
+        List<Long> counts = new ExternalBFS(3, dir, 1000, 4).run();
+        List<Long> expected = new ArrayList<>();
+        for (long c : LAYERS_3X3)
+            expected.add(c);
+        expected.add(0L);
+        assertEquals(expected, counts);
+        assertEquals(181440, counts.stream().mapToLong(Long::longValue).sum());
+    }
+}
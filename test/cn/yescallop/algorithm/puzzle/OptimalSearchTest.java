@@ -0,0 +1,59 @@
+package cn.yescallop.algorithm.puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class OptimalSearchTest {
+
+    private static final long BUDGET = 1 << 26;
+
+    @Test
+    void matchBreadthFirstOn3x3() {
+        Map<Status, Integer> dist = Puzzles.distances(3);
+        assertEquals(181440, dist.size());
+        PatternDatabase pdb = PatternDatabase.build(3);
+        PatternDatabase tiny = PatternDatabase.build(3, new int[][]{{1, 2}, {3, 4, 5}, {6, 7, 8}});
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            Status s = i == 0 ? Status.init(3) : Status.random(3, random);
+            int expected = dist.get(s);
+            String board = "\n" + s;
+            assertSolves(s, expected, IDAStar.findPath(s), board);
+            assertSolves(s, expected, IDAStar.findPath(s, pdb), board);
+            assertSolves(s, expected, IDAStar.findPath(s, tiny), board);
+            assertSolves(s, expected, BidirectionalSearch.findPath(s), board);
+            assertSolves(s, expected, FrontierSearch.findPath(s, BUDGET), board);
+        }
+    }
+
+    @Test
+    void agreeOnSeeded4x4Walks() {
+        PatternDatabase pdb = PatternDatabase.build(4, new int[][]{{1, 2, 3, 4}, {5, 6, 7, 8}, {9, 10, 11, 12}, {13, 14, 15}});
+        Random random = new Random(6);
+        for (int i = 0; i < 30; i++) {
+            int steps = 20 + random.nextInt(30);
+            Status s = Status.generate(4, steps, random);
+            String board = "\n" + s;
+            int[] path = IDAStar.findPath(s);
+            assertNotNull(path, board);
+            assertTrue(path.length <= steps, board);
+            assertSolves(s, path.length, path, board);
+            assertSolves(s, path.length, IDAStar.findPath(s, pdb), board);
+            assertSolves(s, path.length, BidirectionalSearch.findPath(s), board);
+            assertSolves(s, path.length, FrontierSearch.findPath(s, BUDGET), board);
+        }
+    }
+
+    private static void assertSolves(Status s, int expected, int[] path, String board) {
+        assertNotNull(path, board);
+        assertEquals(expected, path.length, board);
+        assertTrue(Puzzles.solves(s, path), board);
+    }
+}
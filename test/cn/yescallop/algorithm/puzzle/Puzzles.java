@@ -0,0 +1,51 @@
+package cn.yescallop.algorithm.puzzle;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reference answers for puzzle tests
+ *
+ * @author Scallop Ye
+ */
+final class Puzzles {
+
+    private Puzzles() {
+    }
+
+    /**
+     * Returns whether the moves are all possible and lead from start
+     * to the goal
+     */
+    static boolean solves(Status start, int[] path) {
+        Status s = start.copy();
+        for (int m : path) {
+            if (!s.move(m))
+                return false;
+        }
+        return s.equals(Status.init(start.size));
+    }
+
+    /**
+     * Returns the number of moves from every solvable board to the goal,
+     * by breadth-first search from the goal; only small sizes fit
+     */
+    static Map<Status, Integer> distances(int size) {
+        Map<Status, Integer> dist = new HashMap<>();
+        ArrayDeque<Status> queue = new ArrayDeque<>();
+        Status goal = Status.init(size);
+        dist.put(goal, 0);
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            Status cur = queue.poll();
+            int d = dist.get(cur);
+            for (int m = 0; m < 4; m++) {
+                Status next = cur.copy();
+                if (next.move(m) && dist.putIfAbsent(next, d + 1) == null)
+                    queue.add(next);
+            }
+        }
+        return dist;
+    }
+}
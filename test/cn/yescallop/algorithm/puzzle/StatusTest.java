@@ -0,0 +1,143 @@
+package cn.yescallop.algorithm.puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class StatusTest {
+
+    @Test
+    void updatesTheHeuristicIncrementally() {
+        Random random = new Random(7);
+        for (int size = 3; size <= Status.MAX_SIZE; size++) {
+            for (int i = 0; i < 200; i++) {
+                // goal boards other than the usual one are searched towards by bidirectional search
+                int[] index = i % 2 == 0 ? Status.goalIndex(size) : Status.createIndex(Status.random(size, random));
+                Status s = Status.random(size, random);
+                s.estimateCost(index);
+                int h = s.h;
+                for (int k = 0; k < 200; k++) {
+                    int delta = s.move(random.nextInt(4), index);
+                    if (delta == Status.NO_MOVE)
+                        continue;
+                    h += delta;
+                    Status fresh = s.copy();
+                    fresh.estimateCost(index);
+                    assertEquals(fresh.h, h, size + "x" + size + " board\n" + s);
+                }
+            }
+        }
+    }
+
+    @Test
+    void clonesWithTheIncrementalHeuristic() {
+        Random random = new Random(8);
+        for (int size = 3; size <= Status.MAX_SIZE; size++) {
+            int[] index = Status.goalIndex(size);
+            Status s = Status.random(size, random);
+            s.estimateCost(index);
+            for (int k = 0; k < 1000; k++) {
+                Status next = s.cloneWithMove(random.nextInt(4), index);
+                if (next == null)
+                    continue;
+                Status fresh = next.copy();
+                fresh.estimateCost(index);
+                assertEquals(fresh.h, next.h);
+                assertEquals(s.g + 1, next.g);
+                assertEquals(next.g + Status.WEIGHT * next.h, next.f);
+                s = next;
+            }
+        }
+    }
+
+    @Test
+    void keepsPackedCellsAndZobristConsistent() {
+        Random random = new Random(9);
+        for (int size = 2; size <= Status.MAX_SIZE; size++) {
+            Status s = Status.random(size, random);
+            for (int k = 0; k < 2000; k++) {
+                s.moveRandomly(random);
+                Status parsed = Status.of(size, s.toString());
+                assertEquals(s, parsed);
+                assertEquals(parsed.zobrist, s.zobrist);
+                assertEquals(parsed.hashCode(), s.hashCode());
+                assertEquals(s, Status.of(size, s.lo, s.hi));
+                assertEquals(0, s.get(s.spaceX, s.spaceY));
+                boolean[] seen = new boolean[size * size];
+                for (int i = 0; i < size * size; i++) {
+                    assertFalse(seen[s.get(i)]);
+                    seen[s.get(i)] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    void keysMatchBoardEquality() {
+        Random random = new Random(10);
+        for (int size = 2; size <= Status.MAX_SIZE; size++) {
+            Map<List<Long>, Status> byKey = new HashMap<>();
+            Map<Status, List<Long>> byBoard = new HashMap<>();
+            for (int i = 0; i < 50000; i++) {
+                // short walks revisit boards, random ones spread over the keys
+                Status s = i % 2 == 0 ? Status.generate(size, random.nextInt(12), random) : Status.random(size, random);
+                if (size == 5)
+                    assertEquals(0, s.keyHi() >>> 30);
+                else
+                    assertEquals(0, s.keyHi());
+                List<Long> key = List.of(s.keyLo(), (long) s.keyHi());
+                Status other = byKey.putIfAbsent(key, s);
+                assertTrue(other == null || other.equals(s), "Same key for\n" + s + "\nand\n" + other);
+                List<Long> otherKey = byBoard.putIfAbsent(s, key);
+                assertTrue(otherKey == null || otherKey.equals(key));
+            }
+        }
+    }
+
+    @Test
+    void drawsSolvableBoards() {
+        Random random = new Random(11);
+        for (int size = 2; size <= Status.MAX_SIZE; size++) {
+            for (int i = 0; i < 2000; i++)
+                assertTrue(Status.isSolvable(size, tiles(Status.random(size, random))));
+            assertTrue(Status.isSolvable(size, tiles(Status.generate(size, 101, random))));
+        }
+        for (int i = 0; i < 100; i++) {
+            Status s = Status.random(3, random);
+            int[] path = IDAStar.findPath(s);
+            assertNotNull(path);
+            assertTrue(Puzzles.solves(s, path));
+        }
+    }
+
+    @Test
+    void tellsUnsolvableBoards() {
+        Random random = new Random(12);
+        for (int size = 2; size <= Status.MAX_SIZE; size++) {
+            for (int i = 0; i < 200; i++) {
+                int[] tiles = tiles(Status.generate(size, random.nextInt(100), random));
+                // swapping two tiles flips the parity
+                int a = tiles[0] == 0 ? 1 : 0, b = tiles[2] == 0 ? 1 : 2;
+                int t = tiles[a];
+                tiles[a] = tiles[b];
+                tiles[b] = t;
+                assertFalse(Status.isSolvable(size, tiles));
+            }
+        }
+    }
+
+    static int[] tiles(Status s) {
+        int[] tiles = new int[s.size * s.size];
+        for (int i = 0; i < tiles.length; i++)
+            tiles[i] = s.get(i);
+        return tiles;
+    }
+}
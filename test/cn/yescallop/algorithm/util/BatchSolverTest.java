@@ -0,0 +1,48 @@
+package cn.yescallop.algorithm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class BatchSolverTest {
+
+    @Test
+    void reportsEveryQueryWhateverItsOutcome() throws InterruptedException {
+        Map<Integer, BatchSolver.Result<Integer>> results = new ConcurrentHashMap<>();
+        BatchSolver<Integer> solver = new BatchSolver<>((q, deadline) -> {
+            switch (q % 5) {
+                case 0:
+                    return new int[]{q};
+                case 1:
+                    return null;
+                case 2:
+                    throw new TimeoutException();
+                case 3:
+                    throw new IllegalArgumentException("Bad query");
+                default:
+                    throw new OutOfMemoryError("Too big");
+            }
+        }, 3, 4, 1, TimeUnit.SECONDS);
+        try (solver) {
+            for (int i = 0; i < 100; i++)
+                solver.submit(i, r -> results.put(r.query, r));
+        }
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            BatchSolver.Result<Integer> r = results.get(i);
+            assertEquals(i % 5 == 0, r.path != null);
+            assertEquals(i % 5 == 2, r.timedOut);
+            assertEquals(i % 5 == 3 ? IllegalArgumentException.class : i % 5 == 4 ? OutOfMemoryError.class : null,
+                    r.error == null ? null : r.error.getClass());
+        }
+        assertTrue(solver.summary().startsWith("Solved: 20, Not found: 20, Timed out: 20, Failed: 40"), solver.summary());
+    }
+}
@@ -0,0 +1,103 @@
+package cn.yescallop.algorithm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks every {@link IntIndexedQueue} strategy against a sorted set of
+ * (priority, id) pairs
+ *
+ * @author Scallop Ye
+ */
+class IntIndexedQueueTest {
+
+    private static final int IDS = 2000;
+
+    static List<String> strategies() {
+        return IntIndexedQueue.strategies();
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    void matchesASortedOracle(String strategy) {
+        Random random = new Random(strategy.hashCode());
+        IntIndexedQueue queue = IntIndexedQueue.create(strategy, 1);
+        int[] priority = new int[IDS];
+        Arrays.fill(priority, -1);
+        TreeSet<Long> oracle = new TreeSet<>();
+        for (int i = 0; i < 300000; i++) {
+            int id = random.nextInt(IDS);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                if (priority[id] != -1)
+                    continue;
+                int p = random.nextInt(5000);
+                queue.offer(id, p);
+                priority[id] = p;
+                oracle.add(pair(p, id));
+            } else if (op < 7) {
+                if (oracle.isEmpty()) {
+                    assertThrows(NoSuchElementException.class, queue::poll);
+                    continue;
+                }
+                int min = (int) (oracle.first() >>> 32);
+                assertEquals(min, priority[queue.peek()], strategy);
+                int polled = queue.poll();
+                assertEquals(min, priority[polled], strategy);
+                assertTrue(oracle.remove(pair(min, polled)));
+                priority[polled] = -1;
+                assertFalse(queue.contains(polled));
+            } else if (op < 9) {
+                if (priority[id] == -1)
+                    continue;
+                int p = random.nextInt(priority[id] + 1);
+                queue.decreaseKey(id, p);
+                oracle.remove(pair(priority[id], id));
+                priority[id] = p;
+                oracle.add(pair(p, id));
+            } else if (random.nextInt(1000) == 0) {
+                queue.clear();
+                oracle.clear();
+                Arrays.fill(priority, -1);
+            }
+            assertEquals(priority[id] != -1, queue.contains(id), strategy);
+            assertEquals(priority[id] != -1, queue.indexOf(id) != -1, strategy);
+            if (priority[id] != -1)
+                assertEquals(priority[id], queue.priorityOf(id), strategy);
+            assertEquals(oracle.size(), queue.size(), strategy);
+        }
+        for (Long pair : oracle)
+            assertEquals(pair >>> 32, queue.priorityOf(pair.intValue()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    void rejectsMisuse(String strategy) {
+        IntIndexedQueue queue = IntIndexedQueue.create(strategy, 4);
+        assertThrows(NoSuchElementException.class, queue::peek);
+        assertThrows(NoSuchElementException.class, () -> queue.decreaseKey(3, 0));
+        queue.offer(3, 5);
+        assertThrows(IllegalStateException.class, () -> queue.offer(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> queue.decreaseKey(3, 6));
+        assertEquals(-1, queue.indexOf(-1));
+        assertEquals(-1, queue.indexOf(100));
+    }
+
+    @Test
+    void rejectsUnknownStrategies() {
+        assertThrows(IllegalArgumentException.class, () -> IntIndexedQueue.create("fibonacci", 1));
+    }
+
+    private static long pair(int p, int id) {
+        return (long) p << 32 | id;
+    }
+}
@@ -0,0 +1,94 @@
+package cn.yescallop.algorithm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class LongHashSetTest {
+
+    @Test
+    void matchesHashSetWithOneWord() {
+        Random random = new Random(10);
+        LongHashSet set = new LongHashSet(1, 1);
+        Set<Long> oracle = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = key(random);
+            if (random.nextBoolean())
+                assertEquals(oracle.add(key), set.add(key), "add " + key);
+            else
+                assertEquals(oracle.contains(key), set.contains(key), "contains " + key);
+            assertEquals(oracle.size(), set.size());
+        }
+    }
+
+    @Test
+    void matchesHashSetWithTwoWords() {
+        Random random = new Random(11);
+        LongHashSet set = new LongHashSet(2, 1);
+        Set<List<Long>> oracle = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            long key0 = key(random);
+            int key1 = random.nextInt(4) - 1;
+            List<Long> key = List.of(key0, (long) key1);
+            if (random.nextBoolean())
+                assertEquals(oracle.add(key), set.add(key0, key1), "add " + key);
+            else
+                assertEquals(oracle.contains(key), set.contains(key0, key1), "contains " + key);
+            assertEquals(oracle.size(), set.size());
+        }
+    }
+
+    @Test
+    void keepsTheZeroKeyApart() {
+        LongHashSet set = new LongHashSet(2);
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertFalse(set.contains(0, 1));
+        assertTrue(set.add(0, 1));
+        assertTrue(set.add(1, 0));
+        assertEquals(3, set.size());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0, 0));
+        assertFalse(set.contains(0, 1));
+        assertFalse(set.contains(1, 0));
+    }
+
+    @Test
+    void tellsKeysApartByTheirHighWord() {
+        LongHashSet set = new LongHashSet(2);
+        for (int k = 0; k < 1000; k++)
+            assertTrue(set.add(42, k));
+        for (int k = 0; k < 1000; k++)
+            assertTrue(set.contains(42, k));
+        assertFalse(set.contains(42, 1000));
+        assertFalse(set.contains(43, 0));
+        assertEquals(1000, set.size());
+    }
+
+    @Test
+    void rejectsTwoWordKeysInAOneWordSet() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(3));
+    }
+
+    /**
+     * Returns a key from a small range around zero or with a random high
+     * half, so that both collisions and the zero key come up often
+     */
+    static long key(Random random) {
+        long k = random.nextInt(4000) - 2000;
+        return random.nextInt(4) == 0 ? k ^ (long) random.nextInt(4) << 48 : k;
+    }
+}
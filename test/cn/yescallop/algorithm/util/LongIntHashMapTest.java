@@ -0,0 +1,107 @@
+package cn.yescallop.algorithm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class LongIntHashMapTest {
+
+    @Test
+    void matchesHashMapWithOneWord() {
+        Random random = new Random(12);
+        LongIntHashMap map = new LongIntHashMap(1, 1);
+        Map<Long, Integer> oracle = new HashMap<>();
+        for (int i = 0; i < 300000; i++) {
+            long key = LongHashSetTest.key(random);
+            switch (random.nextInt(3)) {
+                case 0:
+                    int value = random.nextInt(1000);
+                    map.put(key, value);
+                    oracle.put(key, value);
+                    break;
+                case 1:
+                    assertEquals((int) oracle.getOrDefault(key, -1), map.get(key), "get " + key);
+                    break;
+                default:
+                    Integer old = oracle.remove(key);
+                    assertEquals(old == null ? -1 : old, map.remove(key), "remove " + key);
+            }
+            assertEquals(oracle.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> e : oracle.entrySet())
+            assertEquals((int) e.getValue(), map.get(e.getKey()));
+    }
+
+    @Test
+    void matchesHashMapWithTwoWords() {
+        Random random = new Random(13);
+        LongIntHashMap map = new LongIntHashMap(2, 1);
+        Map<List<Long>, Integer> oracle = new HashMap<>();
+        for (int i = 0; i < 300000; i++) {
+            long key0 = LongHashSetTest.key(random);
+            int key1 = random.nextInt(4) - 1;
+            List<Long> key = List.of(key0, (long) key1);
+            switch (random.nextInt(3)) {
+                case 0:
+                    int value = random.nextInt(1000);
+                    map.put(key0, key1, value);
+                    oracle.put(key, value);
+                    break;
+                case 1:
+                    assertEquals((int) oracle.getOrDefault(key, -1), map.get(key0, key1), "get " + key);
+                    break;
+                default:
+                    Integer old = oracle.remove(key);
+                    assertEquals(old == null ? -1 : old, map.remove(key0, key1), "remove " + key);
+            }
+            assertEquals(oracle.size(), map.size());
+        }
+        for (Map.Entry<List<Long>, Integer> e : oracle.entrySet())
+            assertEquals((int) e.getValue(), map.get(e.getKey().get(0), (int) (long) e.getKey().get(1)));
+    }
+
+    @Test
+    void keepsTheZeroKeyApart() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        assertEquals(-1, map.get(0, 0));
+        map.put(0, 0, 5);
+        map.put(0, 1, 6);
+        map.put(0, 0, 7);
+        assertEquals(2, map.size());
+        assertEquals(7, map.get(0, 0));
+        assertEquals(7, map.remove(0, 0));
+        assertEquals(-1, map.remove(0, 0));
+        assertEquals(-1, map.get(0, 0));
+        assertEquals(6, map.get(0, 1));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(0, 1));
+    }
+
+    @Test
+    void shiftsCollidingKeysBackOnRemoval() {
+        LongIntHashMap map = new LongIntHashMap(2, 1024);
+        for (int k = 0; k < 800; k++)
+            map.put(7, k, k);
+        for (int k = 0; k < 800; k += 2)
+            assertEquals(k, map.remove(7, k));
+        for (int k = 0; k < 800; k++)
+            assertEquals(k % 2 == 0 ? -1 : k, map.get(7, k));
+        assertEquals(400, map.size());
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, 1, 0));
+    }
+}
@@ -0,0 +1,80 @@
+package cn.yescallop.algorithm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Scallop Ye
+ */
+class PathStoreTest {
+
+    @Test
+    void growsFromASingleRecord() {
+        PathStore store = new PathStore(1);
+        int r = PathStore.ROOT;
+        for (int i = 0; i < 100; i++)
+            r = store.add(r, i & 7);
+        assertEquals(100, store.size());
+        assertEquals(100, store.depth(r));
+        int[] path = store.path(r);
+        for (int i = 0; i < path.length; i++)
+            assertEquals(i & 7, path[i]);
+    }
+
+    @Test
+    void matchesPathsKeptAsArrays() {
+        Random random = new Random(13);
+        PathStore store = new PathStore(1);
+        List<int[]> paths = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int parent = paths.isEmpty() || random.nextInt(10) == 0 ? PathStore.ROOT : random.nextInt(paths.size());
+            int move = random.nextInt(8);
+            int[] base = parent == PathStore.ROOT ? new int[0] : paths.get(parent);
+            int[] path = Arrays.copyOf(base, base.length + 1);
+            path[base.length] = move;
+            assertEquals(paths.size(), store.add(parent, move));
+            paths.add(path);
+        }
+        for (int r = 0; r < paths.size(); r++) {
+            assertArrayEquals(paths.get(r), store.path(r));
+            assertEquals(paths.get(r).length, store.depth(r));
+        }
+    }
+
+    @Test
+    void reparentsARecordInPlace() {
+        PathStore store = new PathStore();
+        int a = store.add(PathStore.ROOT, 1);
+        int b = store.add(a, 2);
+        int c = store.add(PathStore.ROOT, 3);
+        int leaf = store.add(b, 4);
+        assertArrayEquals(new int[]{1, 2, 4}, store.path(leaf));
+        store.set(leaf, c, 5);
+        assertEquals(4, store.size());
+        assertEquals(c, store.parent(leaf));
+        assertEquals(5, store.move(leaf));
+        assertArrayEquals(new int[]{3, 5}, store.path(leaf));
+        assertArrayEquals(new int[]{1, 2}, store.path(b));
+        store.set(leaf, PathStore.ROOT, 6);
+        assertArrayEquals(new int[]{6}, store.path(leaf));
+    }
+
+    @Test
+    void rejectsBadMovesAndRecords() {
+        PathStore store = new PathStore();
+        int a = store.add(PathStore.ROOT, 0);
+        assertThrows(IllegalArgumentException.class, () -> store.add(a, 8));
+        assertThrows(IllegalArgumentException.class, () -> store.set(a, PathStore.ROOT, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.set(1, a, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PathStore(0));
+        store.clear();
+        assertEquals(0, store.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.set(a, PathStore.ROOT, 0));
+    }
+}